@@ -0,0 +1,148 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A wrapper for a logger that buffers all messages until {@link #flush()} is called. When several tasks run
+ * concurrently, this keeps the messages of each task together, without having to run the tasks one after another.
+ */
+public final class BufferedLog implements Log {
+    private final Log wrapped;
+    private final List<Consumer<Log>> messages = new ArrayList<>();
+
+    /** @param log Logger to wrap. Buffered messages are written to this logger when flushed. */
+    public BufferedLog(Log log) {
+        this.wrapped = log;
+    }
+
+    /**
+     * Writes all buffered messages to the wrapped logger and clears the buffer. The messages are written while holding
+     * the lock on the wrapped logger, so that messages from different buffers do not interleave.
+     */
+    public void flush() {
+        final List<Consumer<Log>> toFlush;
+        synchronized (messages) {
+            if (messages.isEmpty()) {
+                return;
+            }
+            toFlush = new ArrayList<>(messages);
+            messages.clear();
+        }
+        synchronized (wrapped) {
+            toFlush.forEach(message -> message.accept(wrapped));
+        }
+    }
+
+    private void add(Consumer<Log> message) {
+        synchronized (messages) {
+            messages.add(message);
+        }
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+        if (isDebugEnabled()) {
+            add(log -> log.debug(content));
+        }
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+        if (isDebugEnabled()) {
+            add(log -> log.debug(content, error));
+        }
+    }
+
+    @Override
+    public void debug(Throwable error) {
+        if (isDebugEnabled()) {
+            add(log -> log.debug(error));
+        }
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        if (isErrorEnabled()) {
+            add(log -> log.error(content));
+        }
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        if (isErrorEnabled()) {
+            add(log -> log.error(content, error));
+        }
+    }
+
+    @Override
+    public void error(Throwable error) {
+        if (isErrorEnabled()) {
+            add(log -> log.error(error));
+        }
+    }
+
+    @Override
+    public void info(CharSequence content) {
+        if (isInfoEnabled()) {
+            add(log -> log.info(content));
+        }
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+        if (isInfoEnabled()) {
+            add(log -> log.info(content, error));
+        }
+    }
+
+    @Override
+    public void info(Throwable error) {
+        if (isInfoEnabled()) {
+            add(log -> log.info(error));
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return wrapped.isDebugEnabled();
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return wrapped.isErrorEnabled();
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return wrapped.isInfoEnabled();
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return wrapped.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        if (isWarnEnabled()) {
+            add(log -> log.warn(content));
+        }
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        if (isWarnEnabled()) {
+            add(log -> log.warn(content, error));
+        }
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        if (isWarnEnabled()) {
+            add(log -> log.warn(error));
+        }
+    }
+}
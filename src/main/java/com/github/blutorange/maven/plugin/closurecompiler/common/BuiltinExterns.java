@@ -0,0 +1,82 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import com.google.javascript.jscomp.CommandLineRunner;
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.SourceFile;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache for the externs that are built into the closure compiler. Reading these externs requires unzipping the externs
+ * bundle from the closure compiler jar, which is too expensive to do for each compiled file. The cache is static, so
+ * the externs are shared by all tasks, executions and modules that run in the same JVM.
+ */
+public final class BuiltinExterns {
+    private static final ConcurrentMap<String, List<CachedExtern>> CACHE = new ConcurrentHashMap<>();
+
+    private BuiltinExterns() {}
+
+    /**
+     * Gets the builtin externs for the given environment, see {@link CommandLineRunner#getBuiltinExterns}. Only the
+     * content of the externs is cached. A {@link SourceFile} holds mutable state, so new source files are created on
+     * each call.
+     *
+     * @param environment Environment for which to get the externs.
+     * @return The builtin externs for the given environment.
+     * @throws IOException When the externs could not be read from the closure compiler jar.
+     */
+    public static List<SourceFile> get(CompilerOptions.Environment environment) throws IOException {
+        final var key = getCompilerVersion() + "/" + environment.name();
+        var externs = CACHE.get(key);
+        if (externs == null) {
+            externs = load(environment);
+            final var existing = CACHE.putIfAbsent(key, externs);
+            if (existing != null) {
+                externs = existing;
+            }
+        }
+        final var sourceFiles = new ArrayList<SourceFile>(externs.size());
+        for (final var extern : externs) {
+            sourceFiles.add(SourceFile.fromCode(extern.name, extern.code));
+        }
+        return sourceFiles;
+    }
+
+    private static List<CachedExtern> load(CompilerOptions.Environment environment) throws IOException {
+        final var sourceFiles = CommandLineRunner.getBuiltinExterns(environment);
+        final var externs = new ArrayList<CachedExtern>(sourceFiles.size());
+        for (final var sourceFile : sourceFiles) {
+            externs.add(new CachedExtern(sourceFile.getName(), sourceFile.getCode()));
+        }
+        return List.copyOf(externs);
+    }
+
+    /**
+     * The closure compiler does not expose its version, so we use the name of the jar from which it was loaded. The
+     * name of the jar in the local repository contains the version, such as {@code closure-compiler-v20250402.jar}.
+     *
+     * @return A string that identifies the version of the closure compiler.
+     */
+    static String getCompilerVersion() {
+        final var codeSource = Compiler.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return "unknown";
+        }
+        final var location = codeSource.getLocation().getPath();
+        return location.substring(location.lastIndexOf('/', location.length() - 2) + 1);
+    }
+
+    private static final class CachedExtern {
+        private final String name;
+        private final String code;
+
+        public CachedExtern(String name, String code) {
+            this.name = name;
+            this.code = code;
+        }
+    }
+}
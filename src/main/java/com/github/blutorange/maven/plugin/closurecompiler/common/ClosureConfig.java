@@ -14,6 +14,7 @@
  */
 package com.github.blutorange.maven.plugin.closurecompiler.common;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.lang3.StringUtils.defaultString;
 
 import com.github.blutorange.maven.plugin.closurecompiler.plugin.ClosureSourceMapLocationMapping;
@@ -21,14 +22,11 @@ import com.github.blutorange.maven.plugin.closurecompiler.plugin.DependencyModeF
 import com.github.blutorange.maven.plugin.closurecompiler.plugin.FileSet;
 import com.github.blutorange.maven.plugin.closurecompiler.plugin.MinifyMojo;
 import com.github.blutorange.maven.plugin.closurecompiler.plugin.SourceMapOutputType;
-import com.google.javascript.jscomp.CheckLevel;
 import com.google.javascript.jscomp.CompilationLevel;
 import com.google.javascript.jscomp.CompilerOptions;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.jscomp.DependencyOptions;
 import com.google.javascript.jscomp.DependencyOptions.DependencyMode;
-import com.google.javascript.jscomp.DiagnosticGroup;
-import com.google.javascript.jscomp.DiagnosticGroups;
 import com.google.javascript.jscomp.ModuleIdentifier;
 import com.google.javascript.jscomp.SourceFile;
 import com.google.javascript.jscomp.SourceMap;
@@ -38,181 +36,81 @@ import com.google.javascript.jscomp.SourceMap.PrefixLocationMapping;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringEscapeUtils;
 import org.apache.maven.plugin.MojoFailureException;
 
-/** <a href="https://developers.google.com/closure/compiler/">Google Closure Compiler</a> configuration. */
+/**
+ * <a href="https://developers.google.com/closure/compiler/">Google Closure Compiler</a> configuration. Thread-safe, so
+ * it may be shared by tasks running concurrently.
+ */
 public final class ClosureConfig {
 
-    private static final String BINARY_PREFIX = "0b";
-
     private static final String FILE_PREFIX = "file:";
 
-    private static List<? extends LocationMapping> createLocationMappings(
+    private static LinkedHashMap<String, String> createLocationMappingPrefixes(
             ArrayList<ClosureSourceMapLocationMapping> mappings) {
-        return mappings.stream()
-                .map(e -> new PrefixLocationMapping(defaultString(e.getName()), defaultString(e.getValue())))
-                .collect(Collectors.toList());
+        final var prefixes = new LinkedHashMap<String, String>();
+        // When the same prefix is given more than once, only the first mapping is ever applied
+        mappings.forEach(e -> prefixes.putIfAbsent(defaultString(e.getName()), defaultString(e.getValue())));
+        return prefixes;
     }
 
-    private static CompilerOptions createCompilerOptions(MinifyMojo mojo) throws MojoFailureException {
-        CompilerOptions options = new CompilerOptions();
-
-        options.setAllowDynamicImport(mojo.isClosureAllowDynamicImport());
-        if (mojo.getClosureDynamicImportAlias() != null
-                && !mojo.getClosureDynamicImportAlias().isEmpty()) {
-            options.setDynamicImportAlias(mojo.getClosureDynamicImportAlias());
-        }
-        options.setAngularPass(mojo.isClosureAngularPass());
-        options.setClosurePass(
-                mojo.isClosureProcessCommonJsModules() ? true : mojo.isClosureProcessClosurePrimitives());
-        options.setChunkOutputType(mojo.getClosureChunkOutputType());
-        options.setColorizeErrorOutput(mojo.isClosureColorizeErrorOutput());
-        options.setDefineReplacements(createDefineReplacements(mojo));
-        options.setEmitUseStrict(mojo.isClosureEmitUseStrict());
-        options.setEnvironment(mojo.getClosureEnvironment());
-        options.setExtraAnnotationNames(mojo.getClosureExtraAnnotations());
-        if (!mojo.getClosureForceInjectLibs().isEmpty()) {
-            options.setForceLibraryInjection(mojo.getClosureForceInjectLibs());
-        }
-        options.setLanguageIn(mojo.getClosureLanguageIn());
-        options.setLanguageOut(mojo.getClosureLanguageOut());
-        options.setModuleResolutionMode(mojo.getClosureModuleResolution());
-        options.setOutputCharset(Charset.forName(mojo.getEncoding()));
-        options.setPreferSingleQuotes(mojo.isClosurePreferSingleQuotes());
-        options.setIsolatePolyfills(mojo.isClosureIsolatePolyfills());
-        options.setPrettyPrint(mojo.isClosurePrettyPrint());
-        options.setPreventLibraryInjection(!mojo.isClosureInjectLibraries());
-        options.setProcessCommonJSModules(mojo.isClosureProcessCommonJsModules());
-        if (StringUtils.isNotEmpty(mojo.getClosureRenameVariablePrefix())) {
-            options.setRenamePrefix(mojo.getClosureRenameVariablePrefix());
-        }
-        if (StringUtils.isNotEmpty(mojo.getClosureRenamePrefixNamespace())) {
-            options.setRenamePrefixNamespace(mojo.getClosureRenamePrefixNamespace());
-        }
-        options.setRewritePolyfills(mojo.isClosureRewritePolyfills());
-        options.setStrictModeInput(mojo.isClosureStrictModeInput());
-        options.setTrustedStrings(mojo.isClosureTrustedStrings());
-        options.setModuleRoots(mojo.getClosureJsModuleRoots());
-
-        // Apply compilation level
-        // This overwrites some other options and should be called last.
-        mojo.getClosureCompilationLevel().setOptionsForCompilationLevel(options);
-        if (mojo.isClosureAssumeFunctionWrapper()) {
-            mojo.getClosureCompilationLevel().setWrappedOutputOptimizations(options);
-        }
-        if (mojo.isClosureDebug()) {
-            mojo.getClosureCompilationLevel().setDebugOptionsForCompilationLevel(options);
-        }
-        if (mojo.isClosureUseTypesForOptimization()) {
-            mojo.getClosureCompilationLevel().setTypeBasedOptimizationOptions(options);
-        }
-
-        // Warning levels. First apply default, then specified overrides.
-        mojo.getClosureWarningLevel().setOptionsForWarningLevel(options);
-        createWarningLevels(mojo).forEach(options::setWarningLevel);
-
-        return options;
+    /**
+     * @param prefixes Map between the prefixes and their replacements, in the order in which they are tried.
+     * @return The location mappings for the closure compiler.
+     */
+    static List<? extends LocationMapping> createLocationMappings(Map<String, String> prefixes) {
+        return prefixes.entrySet().stream()
+                .map(e -> new PrefixLocationMapping(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
     }
 
-    private static Map<String, Object> createDefineReplacements(MinifyMojo mojo) {
-        Map<String, Object> defineReplacements = new HashMap<>();
-        for (Map.Entry<String, String> defineReplacement :
-                mojo.getClosureDefineReplacements().entrySet()) {
-            String key = defineReplacement.getKey();
-            String value = nullToEmpty(defineReplacement.getValue()).trim();
-
-            if (isNullOrEmpty(value)) {
-                throw new RuntimeException("Define replacement " + key + " does not have a value.");
-            }
-
-            if ("true".equals(value)) {
-                defineReplacements.put(key, Boolean.TRUE);
-                continue;
-            }
-
-            if ("false".equals(value)) {
-                defineReplacements.put(key, Boolean.FALSE);
-                continue;
-            }
-
-            // Check for quoted string
-            if (value.startsWith("\"") || value.startsWith("'")) {
-                defineReplacements.put(
-                        key, StringEscapeUtils.unescapeEcmaScript(value.substring(1, value.length() - 1)));
-                continue;
-            }
-
-            if (value.startsWith(BINARY_PREFIX)) {
-                try {
-                    defineReplacements.put(key, Integer.valueOf(value.substring(BINARY_PREFIX.length()), 2));
-                    continue;
-                } catch (NumberFormatException e) {
-                    mojo.getLog().warn("Cannot parse a (binary) number: " + value, e);
-                    // Not a valid binary Integer, try next type
-                }
-            }
-
-            if (value.startsWith("0") && value.charAt(1) != '.') {
-                try {
-                    defineReplacements.put(key, Integer.valueOf(value.substring(1), 8));
-                    continue;
-                } catch (NumberFormatException e) {
-                    mojo.getLog().warn("Cannot parse an (octal) number: " + value, e);
-                    // Not a valid binary Integer, try next type
-                }
-            }
-
-            try {
-                defineReplacements.put(key, Integer.valueOf(value, 10));
-                continue;
-            } catch (NumberFormatException e) {
-                // Not a valid Integer, try next type
-            }
-
-            try {
-                defineReplacements.put(key, Double.valueOf(value));
-                continue;
-            } catch (NumberFormatException e) {
-                mojo.getLog().warn("Cannot parse as a number: " + value, e);
-                // Not a valid Double, try next type
+    /**
+     * Configures the compiler options for creating a source map.
+     *
+     * @param compilerOptions Options to modify.
+     * @param sourceMapFormat Format of the source map, or <code>null</code> when no source map is created.
+     * @param includeSourcesContent Whether to include the content of the source files in the source map.
+     * @param sourceMapFile The source map file to create.
+     * @param locationMappings Location mappings configured by the user.
+     * @param defaultMapping Location mapping used when the user did not configure any location mappings.
+     */
+    static void applySourceMapOptions(
+            CompilerOptions compilerOptions,
+            Format sourceMapFormat,
+            boolean includeSourcesContent,
+            File sourceMapFile,
+            List<? extends LocationMapping> locationMappings,
+            LocationMapping defaultMapping) {
+        if (sourceMapFormat != null) {
+            compilerOptions.setSourceMapFormat(sourceMapFormat);
+            compilerOptions.setSourceMapIncludeSourcesContent(includeSourcesContent);
+            compilerOptions.setSourceMapOutputPath(sourceMapFile.getPath());
+            if (locationMappings.isEmpty()) {
+                compilerOptions.setSourceMapLocationMappings(Collections.singletonList(defaultMapping));
+            } else {
+                compilerOptions.setSourceMapLocationMappings(locationMappings);
             }
-
-            // Default to string
-            mojo.getLog()
-                    .warn("Cannot parse define replacement value: '" + value + "'. Use quotation marks for a string.");
-            defineReplacements.put(key, value);
         }
-        return defineReplacements;
-    }
-
-    private static String nullToEmpty(String value) {
-        return value != null ? value : "";
     }
 
-    private static boolean isNullOrEmpty(String value) {
-        return value == null || value.isEmpty();
-    }
-
-    private static List<SourceFile> createExterns(MinifyMojo mojo) {
-        List<SourceFile> externs = new ArrayList<>();
+    private static List<File> createExterns(MinifyMojo mojo) {
+        List<File> externs = new ArrayList<>();
         for (String extern : mojo.getClosureExterns()) {
-            externs.add(SourceFile.fromFile(
-                    new File(mojo.getBaseSourceDir(), extern).getAbsolutePath(), Charset.forName(mojo.getEncoding())));
+            externs.add(new File(mojo.getBaseSourceDir(), extern).getAbsoluteFile());
         }
         for (FileSet externFileSet : mojo.getClosureExternDeclarations()) {
             for (final File extern : externFileSet.getFiles(mojo.getBaseSourceDir())) {
-                externs.add(SourceFile.fromFile(extern.getAbsolutePath(), Charset.forName(mojo.getEncoding())));
+                externs.add(extern.getAbsoluteFile());
             }
         }
         return externs;
@@ -227,30 +125,13 @@ public final class ClosureConfig {
         }
     }
 
-    private static Map<DiagnosticGroup, CheckLevel> createWarningLevels(MinifyMojo mojo) throws MojoFailureException {
-        Map<DiagnosticGroup, CheckLevel> warningLevels = new HashMap<>();
-        for (Map.Entry<String, String> warningLevel :
-                mojo.getClosureWarningLevels().entrySet()) {
-            DiagnosticGroup diagnosticGroup = DiagnosticGroups.forName(warningLevel.getKey());
-            if (diagnosticGroup == null) {
-                throw new MojoFailureException("Failed to process closureWarningLevels: " + warningLevel.getKey()
-                        + " is an invalid DiagnosticGroup");
-            }
+    private final boolean chunkBundles;
 
-            try {
-                CheckLevel checkLevel = CheckLevel.valueOf(warningLevel.getValue());
-                warningLevels.put(diagnosticGroup, checkLevel);
-            } catch (IllegalArgumentException e) {
-                throw new MojoFailureException("Failed to process closureWarningLevels: " + warningLevel.getKey()
-                        + " is an invalid CheckLevel");
-            }
-        }
-        return warningLevels;
-    }
+    private final String commonChunkFilename;
 
     private final CompilationLevel compilationLevel;
 
-    private final CompilerOptions compilerOptions;
+    private final CompilerOptionsFactory compilerOptionsFactory;
 
     private final DependencyMode dependencyMode;
 
@@ -258,7 +139,11 @@ public final class ClosureConfig {
 
     private final CompilerOptions.Environment environment;
 
-    private final List<SourceFile> externs;
+    private final Charset encoding;
+
+    private final List<File> externs;
+
+    private volatile List<Map.Entry<String, String>> externsCode;
 
     private final boolean includeSourcesContent;
 
@@ -274,6 +159,12 @@ public final class ClosureConfig {
 
     private final List<? extends LocationMapping> locationMappings;
 
+    private final LinkedHashMap<String, String> locationMappingPrefixes;
+
+    private final String optionsFingerprint;
+
+    private volatile String fingerprint;
+
     /**
      * Create a new closure compiler configuration from the mojo configuration.
      *
@@ -281,9 +172,12 @@ public final class ClosureConfig {
      * @throws MojoFailureException When the configuration is invalid or cannot be parsed.
      */
     public ClosureConfig(MinifyMojo mojo) throws MojoFailureException {
+        this.chunkBundles = mojo.isClosureChunkBundles();
+        this.commonChunkFilename = mojo.getClosureCommonChunkFilename();
         this.compilationLevel = mojo.getClosureCompilationLevel();
         this.dependencyMode = DependencyModeFlag.toDependencyMode(mojo.getClosureDependencyMode());
         this.entryPoints = new ArrayList<>(mojo.getClosureDependencyEntryPoints());
+        this.encoding = Charset.forName(mojo.getEncoding());
         this.environment = mojo.getClosureEnvironment();
         this.includeSourcesContent = mojo.isClosureIncludeSourcesContent();
         this.languageOut = mojo.getClosureLanguageOut();
@@ -291,24 +185,42 @@ public final class ClosureConfig {
         this.sourceMapOutputType = mojo.getClosureSourceMapOutputType();
 
         this.sourceMapInterpolator = new FilenameInterpolator(mojo.getClosureSourceMapName());
-        this.locationMappings = createLocationMappings(mojo.getClosureSourceMapLocationMappings());
-        this.compilerOptions = createCompilerOptions(mojo);
+        this.locationMappingPrefixes = createLocationMappingPrefixes(mojo.getClosureSourceMapLocationMappings());
+        this.locationMappings = createLocationMappings(locationMappingPrefixes);
+        this.compilerOptionsFactory = new CompilerOptionsFactory(mojo);
         this.externs = createExterns(mojo);
         this.outputInterpolator = createOutputInterpolator(mojo);
+        this.optionsFingerprint = new Fingerprint()
+                .add("compilerVersion", BuiltinExterns.getCompilerVersion())
+                .add("compilerOptions", compilerOptionsFactory.getFingerprint())
+                .add("chunkBundles", chunkBundles)
+                .add("commonChunkFilename", chunkBundles ? commonChunkFilename : null)
+                .add("dependencyMode", dependencyMode)
+                .add("entryPoints", entryPoints)
+                .add("includeSourcesContent", includeSourcesContent)
+                .add("outputWrapper", mojo.getClosureOutputWrapper())
+                .add("sourceMapFormat", sourceMapFormat)
+                .add("sourceMapName", mojo.getClosureSourceMapName())
+                .add("sourceMapOutputType", sourceMapOutputType)
+                .add(
+                        "sourceMapLocationMappings",
+                        mojo.getClosureSourceMapLocationMappings().stream()
+                                .map(mapping -> mapping.getName() + "|" + mapping.getValue())
+                                .collect(Collectors.toList()))
+                .build();
     }
 
-    private DependencyOptions createDependencyOptions(File baseDirForSourceFiles, File sourceDir)
+    /**
+     * @param baseDirForSourceFiles Directory to which the paths of the source files are relative.
+     * @param sourceDir Directory to which file entry points are relative.
+     * @return The dependency options with the configured dependency mode and entry points.
+     * @throws MojoFailureException When the dependency mode is not supported.
+     * @throws IOException When the path of an entry point could not be resolved.
+     */
+    DependencyOptions getDependencyOptions(File baseDirForSourceFiles, File sourceDir)
             throws MojoFailureException, IOException {
         // Map entry points
-        Collection<ModuleIdentifier> entryPointsMapped = new ArrayList<>();
-        for (String entryPoint : CollectionUtils.emptyIfNull(entryPoints)) {
-            if (entryPoint.startsWith(FILE_PREFIX)) {
-                File file = new File(sourceDir, entryPoint.substring(FILE_PREFIX.length())).getCanonicalFile();
-                entryPointsMapped.add(ModuleIdentifier.forFile(FileHelper.relativizePath(baseDirForSourceFiles, file)));
-            } else {
-                entryPointsMapped.add(ModuleIdentifier.forClosure(entryPoint));
-            }
-        }
+        Collection<ModuleIdentifier> entryPointsMapped = getEntryPoints(baseDirForSourceFiles, sourceDir);
 
         // Set dependency mode
         switch (dependencyMode) {
@@ -325,6 +237,30 @@ public final class ClosureConfig {
         }
     }
 
+    /**
+     * @param baseDirForSourceFiles Directory to which the paths of the source files are relative.
+     * @param sourceDir Directory to which file entry points are relative.
+     * @return The configured entry points, as passed to the closure compiler.
+     * @throws IOException When the path of an entry point could not be resolved.
+     */
+    Collection<ModuleIdentifier> getEntryPoints(File baseDirForSourceFiles, File sourceDir) throws IOException {
+        Collection<ModuleIdentifier> entryPointsMapped = new ArrayList<>();
+        for (String entryPoint : CollectionUtils.emptyIfNull(entryPoints)) {
+            if (entryPoint.startsWith(FILE_PREFIX)) {
+                File file = new File(sourceDir, entryPoint.substring(FILE_PREFIX.length())).getCanonicalFile();
+                entryPointsMapped.add(ModuleIdentifier.forFile(FileHelper.relativizePath(baseDirForSourceFiles, file)));
+            } else {
+                entryPointsMapped.add(ModuleIdentifier.forClosure(entryPoint));
+            }
+        }
+        return entryPointsMapped;
+    }
+
+    /** @return How the closure compiler handles the dependencies between the source files. */
+    DependencyMode getDependencyMode() {
+        return dependencyMode;
+    }
+
     public String applyLocationMapping(String location) {
         for (LocationMapping m : locationMappings) {
             String result = m.map(location);
@@ -335,6 +271,16 @@ public final class ClosureConfig {
         return location;
     }
 
+    /** @return Whether all bundles are compiled at once, as chunks of a single compilation. */
+    public boolean isChunkBundles() {
+        return chunkBundles;
+    }
+
+    /** @return Output file for the code shared by multiple bundles, relative to the target directory. */
+    public String getCommonChunkFilename() {
+        return commonChunkFilename;
+    }
+
     public CompilationLevel getCompilationLevel() {
         return compilationLevel;
     }
@@ -346,32 +292,115 @@ public final class ClosureConfig {
             File baseDirForSourceFiles,
             File sourceDir)
             throws MojoFailureException, IOException {
-        CompilerOptions compilerOptions = SerializationUtils.clone(this.compilerOptions);
+        CompilerOptions compilerOptions = compilerOptionsFactory.create();
 
         // Apply dependency options
-        compilerOptions.setDependencyOptions(createDependencyOptions(baseDirForSourceFiles, sourceDir));
+        compilerOptions.setDependencyOptions(getDependencyOptions(baseDirForSourceFiles, sourceDir));
 
         // Tell the compiler to create a source map, if configured.
-        if (sourceMapFormat != null) {
-            compilerOptions.setSourceMapFormat(sourceMapFormat);
-            compilerOptions.setSourceMapIncludeSourcesContent(includeSourcesContent);
-            compilerOptions.setSourceMapOutputPath(sourceMapFile.getPath());
-            if (locationMappings.isEmpty()) {
-                compilerOptions.setSourceMapLocationMappings(Collections.singletonList(defaultMapping));
-            } else {
-                compilerOptions.setSourceMapLocationMappings(locationMappings);
-            }
-        }
+        applySourceMapOptions(
+                compilerOptions,
+                sourceMapFormat,
+                includeSourcesContent,
+                sourceMapFile,
+                locationMappings,
+                defaultMapping);
 
         return compilerOptions;
     }
 
+    /** @return The factory for the compiler options configured by the user. */
+    CompilerOptionsFactory getCompilerOptionsFactory() {
+        return compilerOptionsFactory;
+    }
+
+    /** @return Map between the prefixes of the source map location mappings and their replacements. */
+    Map<String, String> getLocationMappingPrefixes() {
+        return Collections.unmodifiableMap(locationMappingPrefixes);
+    }
+
+    /** @return Format of the source map, or <code>null</code> when no source map is created. */
+    Format getSourceMapFormat() {
+        return sourceMapFormat;
+    }
+
+    /** @return Whether to include the content of the source files in the source map. */
+    boolean isIncludeSourcesContent() {
+        return includeSourcesContent;
+    }
+
     public CompilerOptions.Environment getEnvironment() {
         return environment;
     }
 
-    public List<SourceFile> getExterns() {
-        return externs;
+    /**
+     * Gets a fingerprint of the effective configuration, including the version of the closure compiler and the content
+     * of the externs. When the fingerprint changes, output files created with the previous configuration are outdated.
+     * It does not depend on the location of the project, so that it can be used for the compilation cache.
+     *
+     * @return The fingerprint of this configuration.
+     * @throws IOException When an extern file could not be read.
+     */
+    public String getFingerprint() throws IOException {
+        var result = fingerprint;
+        if (result == null) {
+            // Only the content of the externs, not their absolute paths, so that the fingerprint is the same for
+            // other checkouts of the project and for modules that use the same externs
+            final var externDigests = new ArrayList<String>();
+            for (final var extern : getExternsCode()) {
+                externDigests.add(DigestHelper.digest(extern.getValue().getBytes(UTF_8)));
+            }
+            result = new Fingerprint()
+                    .add("options", optionsFingerprint)
+                    .add("externs", externDigests)
+                    .build();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /** @return The extern files configured by the user, as absolute files. */
+    public List<File> getExternFiles() {
+        return Collections.unmodifiableList(externs);
+    }
+
+    /**
+     * Creates the source files for the configured externs. The extern files are read only once, when this method is
+     * first called, and their content is then reused by all compilations. A {@link SourceFile} holds mutable state such
+     * as the parsed lines, so a new instance is created for each compilation. This lets compilations run concurrently.
+     *
+     * @return The source files with the externs, as configured by the user.
+     * @throws IOException When an extern file could not be read.
+     */
+    public List<SourceFile> getExterns() throws IOException {
+        final var externsCode = getExternsCode();
+        final var sourceFiles = new ArrayList<SourceFile>(externsCode.size());
+        for (final var extern : externsCode) {
+            sourceFiles.add(SourceFile.fromCode(extern.getKey(), extern.getValue()));
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * @return The path and the content of each extern configured by the user. The extern files are read only once.
+     * @throws IOException When an extern file could not be read.
+     */
+    List<Map.Entry<String, String>> getExternsCode() throws IOException {
+        var code = externsCode;
+        if (code == null) {
+            synchronized (externs) {
+                code = externsCode;
+                if (code == null) {
+                    final var entries = new ArrayList<Map.Entry<String, String>>(externs.size());
+                    for (final var extern : externs) {
+                        entries.add(Map.entry(extern.getPath(), Files.readString(extern.toPath(), encoding)));
+                    }
+                    code = List.copyOf(entries);
+                    externsCode = code;
+                }
+            }
+        }
+        return code;
     }
 
     public LanguageMode getLanguageOut() {
@@ -0,0 +1,347 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * On-disk cache for the files created by the closure compiler, such as the minified file and its source map. Entries
+ * are addressed by a key computed from the content of the input files and the effective configuration, so the cache can
+ * be shared by all modules and checkouts on the same machine.
+ *
+ * <p>Each entry is a directory that contains one file per cached output. Entries are written to a temporary directory
+ * first and then moved to their final location, so that concurrent builds never see a partially written entry. When the
+ * total size of the cache exceeds the configured maximum, the least recently used entries are removed. Entries are
+ * moved out of the way before they are deleted, so concurrent builds never see a partially deleted entry either, only
+ * an entry whose files vanish while they are read.
+ */
+public final class CompilationCache {
+    private static final String TEMP_DIR_PREFIX = "tmp-";
+
+    private static final String EVICT_LOCK_FILE = "evict.lock";
+
+    private final File cacheDir;
+
+    private final long maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong remoteHits = new AtomicLong();
+
+    private final AtomicLong addedEntries = new AtomicLong();
+
+    private final RemoteCache remoteCache;
+
+    private final boolean remoteReadOnly;
+
+    /**
+     * @param cacheDir Directory where the cache entries are stored.
+     * @param maxSize Maximum total size of all cache entries in bytes.
+     */
+    public CompilationCache(File cacheDir, long maxSize) {
+        this(cacheDir, maxSize, null, true);
+    }
+
+    /**
+     * @param cacheDir Directory where the cache entries are stored.
+     * @param maxSize Maximum total size of all cache entries in bytes.
+     * @param remoteCache Remote cache to consult when an entry does not exist locally, may be <code>null</code>.
+     * @param remoteReadOnly Whether to only read from the remote cache, without uploading new entries.
+     */
+    public CompilationCache(File cacheDir, long maxSize, RemoteCache remoteCache, boolean remoteReadOnly) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+        this.remoteCache = remoteCache;
+        this.remoteReadOnly = remoteReadOnly;
+    }
+
+    /**
+     * Looks up the cache entry with the given key and counts the hit or miss. When the entry does not exist locally,
+     * the remote cache is consulted, if any.
+     *
+     * @param key Key of the entry.
+     * @return The files of the cached entry, by their name. <code>null</code> if no such entry exists.
+     * @throws IOException When the remote cache could not be accessed. This is counted as a miss.
+     */
+    public Map<String, File> get(String key) throws IOException {
+        final var entryDir = getEntryDir(key);
+        var files = entryDir.listFiles();
+        if ((files == null || files.length == 0) && remoteCache != null) {
+            try {
+                if (fetchRemote(key, entryDir)) {
+                    remoteHits.incrementAndGet();
+                    files = entryDir.listFiles();
+                }
+            } catch (IOException e) {
+                misses.incrementAndGet();
+                throw e;
+            }
+        }
+        if (files == null || files.length == 0) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        // Mark the entry as recently used, see evict
+        entryDir.setLastModified(System.currentTimeMillis());
+        return Stream.of(files).collect(Collectors.toMap(File::getName, file -> file));
+    }
+
+    /**
+     * Counts a miss for an entry that was found by {@link #get(String)}, but could not be used, such as when it was
+     * removed before it could be read.
+     */
+    public void miss() {
+        hits.decrementAndGet();
+        misses.incrementAndGet();
+    }
+
+    /**
+     * Stores a new entry in the cache. When an entry with the same key exists already, it is left unchanged. The entry
+     * is also uploaded to the remote cache, if any and unless it is read-only.
+     *
+     * @param key Key of the entry.
+     * @param files Files to store, by their name.
+     * @throws IOException When the files could not be read or the entry could not be written.
+     */
+    public void put(String key, Map<String, File> files) throws IOException {
+        final var entryDir = getEntryDir(key);
+        if (entryDir.isDirectory()) {
+            return;
+        }
+        final var tempDir = createTempDir();
+        try {
+            for (final var file : files.entrySet()) {
+                Files.copy(file.getValue().toPath(), tempDir.resolve(file.getKey()));
+            }
+            if (commit(tempDir, entryDir)) {
+                addedEntries.incrementAndGet();
+            }
+        } finally {
+            deleteTempDir(tempDir);
+        }
+        if (remoteCache != null && !remoteReadOnly) {
+            remoteCache.put(key, zip(files));
+        }
+    }
+
+    private boolean fetchRemote(String key, File entryDir) throws IOException {
+        final var entry = remoteCache.get(key);
+        if (entry == null) {
+            return false;
+        }
+        final var tempDir = createTempDir();
+        try {
+            unzip(entry, tempDir);
+            if (commit(tempDir, entryDir)) {
+                addedEntries.incrementAndGet();
+            }
+        } finally {
+            deleteTempDir(tempDir);
+        }
+        return true;
+    }
+
+    private Path createTempDir() throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        return Files.createTempDirectory(cacheDir.toPath(), TEMP_DIR_PREFIX);
+    }
+
+    private static void deleteTempDir(Path tempDir) throws IOException {
+        if (Files.exists(tempDir)) {
+            FileUtils.deleteDirectory(tempDir.toFile());
+        }
+    }
+
+    /**
+     * Moves a completely written entry from its temporary directory to its final location.
+     *
+     * @return Whether the entry was added, <code>false</code> when another build stored the same entry in the meantime.
+     */
+    private static boolean commit(Path tempDir, File entryDir) throws IOException {
+        Files.createDirectories(entryDir.getParentFile().toPath());
+        try {
+            Files.move(tempDir, entryDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+            // Another build stored the same entry in the meantime
+            return false;
+        } catch (IOException e) {
+            // Some file systems report a non-empty target directory differently
+            if (!entryDir.isDirectory()) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    private static byte[] zip(Map<String, File> files) throws IOException {
+        final var bytes = new ByteArrayOutputStream();
+        try (final var zip = new ZipOutputStream(bytes)) {
+            for (final var file : new TreeMap<>(files).entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                Files.copy(file.getValue().toPath(), zip);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void unzip(byte[] data, Path targetDir) throws IOException {
+        try (final var zip = new ZipInputStream(new ByteArrayInputStream(data))) {
+            for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                final var name = entry.getName();
+                // Entries only contain plain files, never accept a path that points outside the target directory
+                if (entry.isDirectory() || name.contains("/") || name.contains("\\") || name.startsWith(".")) {
+                    throw new IOException("Invalid file [" + name + "] in remote cache entry");
+                }
+                Files.copy(zip, targetDir.resolve(name));
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the total size of the cache does not exceed the maximum size. The
+     * cache only grows when entries are added, so nothing is done when no entry was added via this instance. When
+     * another build is removing entries from the same cache at the same time, such as another module of a parallel
+     * build, nothing is done either.
+     *
+     * @param log Logger for reporting the removed entries.
+     */
+    public void evict(Log log) {
+        if (addedEntries.get() == 0) {
+            return;
+        }
+        try {
+            Files.createDirectories(cacheDir.toPath());
+            try (final var channel = FileChannel.open(
+                            new File(cacheDir, EVICT_LOCK_FILE).toPath(),
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE);
+                    final var lock = channel.tryLock()) {
+                if (lock == null) {
+                    log.debug("Another build is removing entries from the compilation cache.");
+                    return;
+                }
+                evictLocked(log);
+            } catch (OverlappingFileLockException e) {
+                // File locks are held by the whole JVM, another thread of this JVM holds the lock
+                log.debug("Another build is removing entries from the compilation cache.");
+            }
+        } catch (IOException e) {
+            log.debug("Failed to lock the compilation cache for removing entries.", e);
+        }
+    }
+
+    private void evictLocked(Log log) {
+        final var entries = new ArrayList<Entry>();
+        long totalSize = 0;
+        for (final var bucket : listFiles(cacheDir)) {
+            if (!bucket.isDirectory() || bucket.getName().startsWith(TEMP_DIR_PREFIX)) {
+                continue;
+            }
+            for (final var entryDir : listFiles(bucket)) {
+                final var size =
+                        listFiles(entryDir).stream().mapToLong(File::length).sum();
+                entries.add(new Entry(entryDir, entryDir.lastModified(), size));
+                totalSize += size;
+            }
+        }
+        if (totalSize <= maxSize) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        var removed = 0;
+        for (final var entry : entries) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            try {
+                remove(entry.dir);
+                totalSize -= entry.size;
+                removed += 1;
+            } catch (IOException e) {
+                log.debug("Failed to remove the cache entry [" + entry.dir + "].", e);
+            }
+        }
+        log.debug("Removed " + removed + " least recently used entries from the compilation cache.");
+    }
+
+    /**
+     * Removes an entry. It is moved to a temporary directory first, so that other builds either see the complete entry
+     * or no entry at all, never a partially deleted entry that would otherwise block storing the entry again.
+     */
+    private void remove(File entryDir) throws IOException {
+        final var tempDir = createTempDir();
+        final var removedDir = tempDir.resolve(entryDir.getName());
+        try {
+            Files.move(entryDir.toPath(), removedDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // Removed by another build in the meantime
+        } finally {
+            deleteTempDir(tempDir);
+        }
+    }
+
+    /**
+     * Logs how often an entry was found in the cache.
+     *
+     * @param log Logger to use.
+     */
+    public void logStatistics(Log log) {
+        final var hitCount = hits.get();
+        final var missCount = misses.get();
+        if (hitCount + missCount > 0) {
+            log.info("Compilation cache: " + hitCount + " hits, " + missCount + " misses (" + cacheDir + ").");
+        }
+        if (remoteCache != null && remoteHits.get() > 0) {
+            log.info("Compilation cache: " + remoteHits.get() + " of the hits were downloaded from the remote cache.");
+        }
+    }
+
+    private File getEntryDir(String key) {
+        return new File(new File(cacheDir, key.substring(0, 2)), key);
+    }
+
+    private static List<File> listFiles(File dir) {
+        final var files = dir.listFiles();
+        return files != null ? List.of(files) : List.of();
+    }
+
+    private static final class Entry {
+        private final File dir;
+        private final long lastUsed;
+        private final long size;
+
+        public Entry(File dir, long lastUsed, long size) {
+            this.dir = dir;
+            this.lastUsed = lastUsed;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.DependencyOptions;
+import com.google.javascript.jscomp.SourceFile;
+import com.google.javascript.jscomp.SourceMap;
+import com.google.javascript.jscomp.SourceMap.LocationMapping;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A single invocation of the closure compiler, with everything that is needed to compile the source files and to create
+ * the source map. It is serializable, so that it can be run by the {@link CompilerDaemon} instead of the Maven JVM. The
+ * externs configured by the user are read by the client. The source files are only read by the closure compiler when it
+ * parses them, directly from the file system, so that the content of each file is only held in memory while it is
+ * parsed.
+ */
+final class CompileJob implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final CompilerOptionsFactory compilerOptionsFactory;
+
+    private final DependencyOptions dependencyOptions;
+
+    private final CompilerOptions.Environment environment;
+
+    private final ArrayList<Source> externs;
+
+    private final ArrayList<Source> sources;
+
+    private final SourceMap.Format sourceMapFormat;
+
+    private final boolean includeSourcesContent;
+
+    private final LinkedHashMap<String, String> locationMappingPrefixes;
+
+    private final File baseDirForSourceFiles;
+
+    private final File sourceMapFile;
+
+    private final String wrapperPrefix;
+
+    private final String pathToSource;
+
+    /**
+     * @param closureConfig Closure compiler configuration.
+     * @param dependencyOptions Dependency options for the source files.
+     * @param sources The source files to compile.
+     * @param baseDirForSourceFiles Directory to which the paths of the source files are relative.
+     * @param sourceMapFile The source map file for the minified file.
+     * @param pathToSource Path of the minified file relative to the source map.
+     * @throws IOException When an extern file could not be read.
+     */
+    CompileJob(
+            ClosureConfig closureConfig,
+            DependencyOptions dependencyOptions,
+            List<Source> sources,
+            File baseDirForSourceFiles,
+            File sourceMapFile,
+            String pathToSource)
+            throws IOException {
+        this.compilerOptionsFactory = closureConfig.getCompilerOptionsFactory();
+        this.dependencyOptions = dependencyOptions;
+        this.environment = closureConfig.getEnvironment();
+        this.externs = new ArrayList<>();
+        for (final var extern : closureConfig.getExternsCode()) {
+            externs.add(new Source(extern.getKey(), extern.getValue()));
+        }
+        this.sources = new ArrayList<>(sources);
+        this.sourceMapFormat = closureConfig.getSourceMapFormat();
+        this.includeSourcesContent = closureConfig.isIncludeSourcesContent();
+        this.locationMappingPrefixes = new LinkedHashMap<>(closureConfig.getLocationMappingPrefixes());
+        this.baseDirForSourceFiles = baseDirForSourceFiles;
+        this.sourceMapFile = sourceMapFile;
+        this.wrapperPrefix = closureConfig.getOutputInterpolator().getWrapperPrefix();
+        this.pathToSource = pathToSource;
+    }
+
+    /**
+     * @param defaultMapping Location mapping used when the user did not configure any location mappings.
+     * @return New compiler options for this job.
+     */
+    CompilerOptions createCompilerOptions(LocationMapping defaultMapping) {
+        final var compilerOptions = compilerOptionsFactory.create();
+        compilerOptions.setDependencyOptions(dependencyOptions);
+        ClosureConfig.applySourceMapOptions(
+                compilerOptions,
+                sourceMapFormat,
+                includeSourcesContent,
+                sourceMapFile,
+                ClosureConfig.createLocationMappings(locationMappingPrefixes),
+                defaultMapping);
+        return compilerOptions;
+    }
+
+    /** @return The paths of the source files to compile. */
+    List<String> getSourcePaths() {
+        final var paths = new ArrayList<String>(sources.size());
+        sources.forEach(source -> paths.add(source.path));
+        return paths;
+    }
+
+    /**
+     * Compiles the source files. The compiled code and the source map are only created when there are no errors.
+     *
+     * @param log Log for the source map location mapping, or <code>null</code> to not log anything.
+     * @return The result of the compilation.
+     * @throws IOException When the builtin externs or the source map could not be read.
+     */
+    CompileResult run(Log log) throws IOException {
+        final var fileSystemMapping = new FileSystemLocationMapping(log, baseDirForSourceFiles, sourceMapFile);
+        final var options = createCompilerOptions(fileSystemMapping);
+
+        final var externFiles = new ArrayList<SourceFile>(BuiltinExterns.get(environment));
+        for (final var extern : externs) {
+            externFiles.add(SourceFile.fromCode(extern.path, extern.code));
+        }
+        final var sourceFiles = new ArrayList<SourceFile>(sources.size());
+        for (final var source : sources) {
+            sourceFiles.add(source.toSourceFile());
+        }
+
+        final var compiler = new Compiler();
+        compiler.compile(externFiles, sourceFiles, options);
+
+        final var warnings = CompileResult.messagesOf(compiler.getWarnings());
+        final var errors = CompileResult.messagesOf(compiler.getErrors());
+        if (!errors.isEmpty()) {
+            return new CompileResult(null, null, warnings, errors);
+        }
+        final var compiled = compiler.toSource();
+        final var sourceMap = sourceMapFormat != null
+                ? renderSourceMap(compiler, fileSystemMapping, wrapperPrefix, pathToSource)
+                : null;
+        return new CompileResult(compiled, sourceMap, warnings, errors);
+    }
+
+    /**
+     * Renders the source map of the code that was last printed by the given compiler.
+     *
+     * @param compiler Compiler whose source map contains the mappings of the compiled code.
+     * @param fileSystemMapping Location mapping used by the compiler.
+     * @param wrapperPrefix Code that is added before the compiled code, see {@link OutputInterpolator}.
+     * @param pathToSource Path of the minified file relative to the source map.
+     * @return The source map as JSON.
+     * @throws IOException When the source map could not be rendered.
+     */
+    static String renderSourceMap(
+            Compiler compiler, FileSystemLocationMapping fileSystemMapping, String wrapperPrefix, String pathToSource)
+            throws IOException {
+        // Adjust source map for output wrapper.
+        compiler.getSourceMap().setWrapperPrefix(wrapperPrefix);
+        fileSystemMapping.setTranspilationDone(true);
+        final var sourceMap = new StringBuilder();
+        compiler.getSourceMap().appendTo(sourceMap, pathToSource);
+        return sourceMap.toString();
+    }
+
+    /** Path and content of a source file or an extern, or the file from which the content is loaded. */
+    static final class Source implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+
+        private final String code;
+
+        private final File file;
+
+        private final String encoding;
+
+        Source(String path, String code) {
+            this(path, code, null, null);
+        }
+
+        private Source(String path, String code, File file, String encoding) {
+            this.path = path;
+            this.code = code;
+            this.file = file;
+            this.encoding = encoding;
+        }
+
+        /**
+         * @param file File with the content of the source.
+         * @param baseDir Directory to which the path of the source is relative.
+         * @param encoding Encoding of the file.
+         * @return The source for the given file. Its content is not read yet.
+         */
+        static Source ofFile(File file, File baseDir, Charset encoding) {
+            return new Source(FileHelper.relativizePath(baseDir, file), null, file.getAbsoluteFile(), encoding.name());
+        }
+
+        /**
+         * A source file created for a file loads its content only when the closure compiler parses it. The closure
+         * compiler clears the content again once it was parsed, and loads it again when it is needed later, e.g. for
+         * the content of the source map.
+         *
+         * @return A new closure source file for this source.
+         */
+        SourceFile toSourceFile() {
+            if (file == null) {
+                return SourceFile.builder().withPath(path).withContent(code).build();
+            }
+            // The original path is used as the name of the source file, the path is the file to load
+            return SourceFile.builder()
+                    .withPath(file.toPath())
+                    .withOriginalPath(path)
+                    .withCharset(Charset.forName(encoding))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import com.google.javascript.jscomp.JSError;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Result of a {@link CompileJob}, with the compiled code, the source map and the messages of the compiler. It is
+ * serializable, so that it can be sent back from the compiler daemon.
+ */
+final class CompileResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String compiled;
+
+    private final String sourceMap;
+
+    private final ArrayList<Message> warnings;
+
+    private final ArrayList<Message> errors;
+
+    /**
+     * @param compiled The compiled code, or <code>null</code> when the compilation failed.
+     * @param sourceMap The source map, or <code>null</code> when no source map was created.
+     * @param warnings Warnings reported by the compiler.
+     * @param errors Errors reported by the compiler.
+     */
+    CompileResult(String compiled, String sourceMap, List<Message> warnings, List<Message> errors) {
+        this.compiled = compiled;
+        this.sourceMap = sourceMap;
+        this.warnings = new ArrayList<>(warnings);
+        this.errors = new ArrayList<>(errors);
+    }
+
+    /** @return The compiled code, or <code>null</code> when the compilation failed. */
+    public String getCompiled() {
+        return compiled;
+    }
+
+    /** @return The source map, or <code>null</code> when no source map was created. */
+    public String getSourceMap() {
+        return sourceMap;
+    }
+
+    public List<Message> getWarnings() {
+        return warnings;
+    }
+
+    public List<Message> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @param errors Errors or warnings reported by the compiler.
+     * @return The messages for the given errors or warnings.
+     */
+    static List<Message> messagesOf(Collection<JSError> errors) {
+        final var messages = new ArrayList<Message>(errors.size());
+        for (final var error : errors) {
+            messages.add(new Message(
+                    error.getSourceName(), error.getLineNumber(), error.getCharno(), error.getDescription()));
+        }
+        return messages;
+    }
+
+    /** An error or a warning reported by the compiler. */
+    static final class Message implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String sourceName;
+
+        private final int lineNumber;
+
+        private final int charno;
+
+        private final String description;
+
+        Message(String sourceName, int lineNumber, int charno, String description) {
+            this.sourceName = sourceName;
+            this.lineNumber = lineNumber;
+            this.charno = charno;
+            this.description = description;
+        }
+
+        public String getSourceName() {
+            return sourceName;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public int getCharno() {
+            return charno;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A long-lived JVM that runs {@link CompileJob}s sent by the plugin over a local socket. The closure compiler is loaded
+ * and optimized by the JIT only once, so that it stays fast across multiple Maven invocations. It also keeps the memory
+ * used by the closure compiler out of the Maven JVM. The daemon is started by the {@link CompilerDaemonClient}.
+ *
+ * <p>The daemon only listens on the loopback interface. It writes its port and a random token to a state file that is
+ * only readable by the current user, jobs are only accepted from clients that send this token. The daemon exits when it
+ * did not receive a job for the idle timeout, or when the state file was deleted.
+ */
+public final class CompilerDaemon {
+    static final String PROPERTY_PORT = "port";
+
+    static final String PROPERTY_TOKEN = "token";
+
+    /** Only the classes that make up a compile job and its result may be deserialized. */
+    static final ObjectInputFilter SERIALIZATION_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=64;java.lang.*;java.util.*;java.io.File;com.google.javascript.jscomp.**;"
+                    + "com.github.blutorange.maven.plugin.closurecompiler.common.*;!*");
+
+    private static final long READ_TIMEOUT_MILLIS = 60_000;
+
+    private static final long MAX_IDLE_CHECK_MILLIS = 10_000;
+
+    private final File stateFile;
+
+    private final long idleTimeoutMillis;
+
+    private final String token;
+
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    private ServerSocket serverSocket;
+
+    private CompilerDaemon(File stateFile, long idleTimeoutMillis) {
+        this.stateFile = stateFile;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        final var random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        this.token = DigestHelper.digest(random);
+    }
+
+    /**
+     * Starts the daemon.
+     *
+     * @param args The state file to write and the idle timeout in milliseconds.
+     * @throws Exception When the daemon could not be started.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: CompilerDaemon <state file> <idle timeout in milliseconds>");
+        }
+        new CompilerDaemon(new File(args[0]), Long.parseLong(args[1])).run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        final ExecutorService executor = Executors.newCachedThreadPool(runnable -> newDaemonThread(runnable, "job"));
+        final ScheduledExecutorService idleCheck =
+                Executors.newSingleThreadScheduledExecutor(runnable -> newDaemonThread(runnable, "idle-check"));
+        try (final var server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket = server;
+            writeStateFile(server.getLocalPort());
+            log("Listening on port " + server.getLocalPort() + ", idle timeout is " + idleTimeoutMillis + " ms.");
+            final var checkInterval = Math.max(100, Math.min(idleTimeoutMillis, MAX_IDLE_CHECK_MILLIS));
+            idleCheck.scheduleWithFixedDelay(this::checkIdle, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (final SocketException e) {
+                    // Closed by the idle check
+                    break;
+                }
+                activeJobs.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        handle(socket);
+                    } finally {
+                        lastActivity = System.currentTimeMillis();
+                        activeJobs.decrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            idleCheck.shutdownNow();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+            deleteStateFile();
+            log("Stopped.");
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout((int) READ_TIMEOUT_MILLIS);
+            final var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final var clientToken = input.readUTF();
+            if (!MessageDigest.isEqual(token.getBytes(UTF_8), clientToken.getBytes(UTF_8))) {
+                log("Rejected a connection with an invalid token.");
+                return;
+            }
+            final var objectInput = new ObjectInputStream(input);
+            objectInput.setObjectInputFilter(SERIALIZATION_FILTER);
+            final var job = (CompileJob) objectInput.readObject();
+            socket.setSoTimeout(0);
+
+            Object response;
+            try {
+                response = job.run(null);
+            } catch (final Exception | StackOverflowError | OutOfMemoryError e) {
+                final var stackTrace = new StringWriter();
+                e.printStackTrace(new PrintWriter(stackTrace));
+                response = stackTrace.toString();
+            }
+
+            final var output = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeObject(response);
+            output.flush();
+        } catch (final IOException | ClassNotFoundException | ClassCastException e) {
+            log("Failed to process a job: " + e);
+        }
+    }
+
+    private void checkIdle() {
+        final var idle = activeJobs.get() == 0 && System.currentTimeMillis() - lastActivity > idleTimeoutMillis;
+        if (idle || !isStateFileOwned()) {
+            log(idle ? "Stopping after being idle." : "Stopping, the state file was removed or replaced.");
+            try {
+                serverSocket.close();
+            } catch (final IOException e) {
+                log("Failed to close the server socket: " + e);
+            }
+        }
+    }
+
+    private void writeStateFile(int port) throws IOException {
+        final var state = new Properties();
+        state.setProperty(PROPERTY_PORT, Integer.toString(port));
+        state.setProperty(PROPERTY_TOKEN, token);
+        final var dir = stateFile.getAbsoluteFile().getParentFile().toPath();
+        final var tempFile = Files.createTempFile(dir, stateFile.getName(), ".tmp");
+        try {
+            try {
+                Files.setPosixFilePermissions(tempFile, PosixFilePermissions.fromString("rw-------"));
+            } catch (final UnsupportedOperationException e) {
+                // Not a POSIX file system, the file inherits the permissions of the directory
+            }
+            try (final var writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+                state.store(writer, "Closure compiler daemon");
+            }
+            Files.move(
+                    tempFile, stateFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private boolean isStateFileOwned() {
+        try {
+            return token.equals(readStateFile(stateFile).getProperty(PROPERTY_TOKEN));
+        } catch (final NoSuchFileException e) {
+            return false;
+        } catch (final IOException e) {
+            // Keep running when the state file cannot be read temporarily
+            return true;
+        }
+    }
+
+    private void deleteStateFile() {
+        try {
+            if (isStateFileOwned()) {
+                Files.deleteIfExists(stateFile.toPath());
+            }
+        } catch (final IOException e) {
+            log("Failed to delete the state file: " + e);
+        }
+    }
+
+    /**
+     * @param stateFile State file written by a daemon.
+     * @return The port and the token of the daemon.
+     * @throws IOException When the state file does not exist or could not be read.
+     */
+    static Properties readStateFile(File stateFile) throws IOException {
+        final var state = new Properties();
+        try (final var reader = Files.newBufferedReader(stateFile.toPath(), UTF_8)) {
+            state.load(reader);
+        }
+        return state;
+    }
+
+    private static Thread newDaemonThread(Runnable runnable, String name) {
+        final var thread = new Thread(runnable, "closure-compiler-daemon-" + name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void log(String message) {
+        System.out.println("[" + Instant.now() + "] " + message);
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import com.google.javascript.jscomp.Compiler;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Client for the {@link CompilerDaemon}. When no daemon is running yet, a new daemon is started and then reused by
+ * later Maven invocations. A daemon is shared by all invocations that use the same plugin classpath, the same JVM
+ * arguments and the same Java installation. Otherwise, a separate daemon is started. This class is thread-safe.
+ */
+public final class CompilerDaemonClient {
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+
+    private static final long START_TIMEOUT_MILLIS = 60_000;
+
+    /** File locks are held by the whole JVM, so threads of the same JVM must be synchronized separately. */
+    private static final Object START_LOCK = new Object();
+
+    private final File daemonDir;
+
+    private final List<String> jvmArgs;
+
+    private final long idleTimeoutMillis;
+
+    private final int responseTimeoutMillis;
+
+    private final List<File> classpath;
+
+    private final String name;
+
+    /**
+     * @param daemonDir Directory with the state files and logs of the daemons.
+     * @param jvmArgs Additional arguments for the JVM of the daemon, such as {@code -Xmx2g}.
+     * @param idleTimeoutMillis Time after which an idle daemon exits.
+     * @param responseTimeoutMillis Maximum time to wait for the daemon to compile a job, 0 to wait indefinitely.
+     * @param classLoader Class loader of the plugin, used for the classpath of the daemon.
+     */
+    public CompilerDaemonClient(
+            File daemonDir,
+            List<String> jvmArgs,
+            long idleTimeoutMillis,
+            int responseTimeoutMillis,
+            ClassLoader classLoader) {
+        this.daemonDir = daemonDir;
+        this.jvmArgs = List.copyOf(jvmArgs);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.responseTimeoutMillis = responseTimeoutMillis;
+        this.classpath = getClasspath(classLoader);
+        final var classpathFingerprint = new ArrayList<String>();
+        for (final var file : classpath) {
+            // SNAPSHOT versions are replaced at the same path
+            classpathFingerprint.add(file.getPath() + "|" + file.length() + "|" + file.lastModified());
+        }
+        this.name = "daemon-"
+                + new Fingerprint()
+                        .add("classpath", classpathFingerprint)
+                        .add("jvmArgs", this.jvmArgs)
+                        .add("javaHome", System.getProperty("java.home"))
+                        .build()
+                        .substring(0, 16);
+    }
+
+    /**
+     * Runs the job in the daemon, and starts the daemon first if it is not running.
+     *
+     * @param job Job to run.
+     * @param log Log for messages about the daemon.
+     * @return The result of the job.
+     * @throws IOException When the daemon could not be started, or when it failed to run the job or did not respond in
+     *     time.
+     */
+    CompileResult compile(CompileJob job, Log log) throws IOException {
+        final var state = readState();
+        if (state != null) {
+            try {
+                return send(state, job);
+            } catch (final ConnectException e) {
+                log.debug("The compiler daemon is not running anymore: " + e.getMessage());
+            }
+        }
+        return send(startDaemon(state, log), job);
+    }
+
+    private CompileResult send(Properties state, CompileJob job) throws IOException {
+        final int port;
+        try {
+            port = Integer.parseInt(state.getProperty(CompilerDaemon.PROPERTY_PORT, ""));
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid state file " + getStateFile(), e);
+        }
+        try (final var socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            // A daemon that hangs, such as when it runs out of memory, must not block the build
+            socket.setSoTimeout(responseTimeoutMillis);
+
+            final var output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeUTF(state.getProperty(CompilerDaemon.PROPERTY_TOKEN, ""));
+            final var objectOutput = new ObjectOutputStream(output);
+            objectOutput.writeObject(job);
+            objectOutput.flush();
+
+            final var input = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            input.setObjectInputFilter(CompilerDaemon.SERIALIZATION_FILTER);
+            final var response = input.readObject();
+            if (response instanceof CompileResult) {
+                return (CompileResult) response;
+            }
+            throw new IOException("The compiler daemon failed to compile the files: " + response);
+        } catch (final SocketTimeoutException e) {
+            throw new IOException(
+                    "The compiler daemon did not respond within " + responseTimeoutMillis + " ms, see the log file ["
+                            + new File(daemonDir, name + ".log") + "].",
+                    e);
+        } catch (final ClassNotFoundException e) {
+            throw new IOException("Unexpected response from the compiler daemon", e);
+        }
+    }
+
+    /**
+     * Starts a new daemon, unless another process or thread started a daemon in the meantime.
+     *
+     * @param staleState The state of the daemon that is not running anymore, or <code>null</code>.
+     * @return The state of the running daemon.
+     */
+    private Properties startDaemon(Properties staleState, Log log) throws IOException {
+        synchronized (START_LOCK) {
+            Files.createDirectories(daemonDir.toPath());
+            final var lockFile = new File(daemonDir, name + ".lock").toPath();
+            try (final var channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    final var lock = channel.lock()) {
+                final var state = readState();
+                if (state != null && !state.equals(staleState)) {
+                    return state;
+                }
+                Files.deleteIfExists(getStateFile().toPath());
+
+                final var logFile = new File(daemonDir, name + ".log");
+                log.info("Starting the compiler daemon, its log file is [" + logFile + "].");
+                final var process = new ProcessBuilder(createCommand())
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                        .start();
+                process.getOutputStream().close();
+
+                final var deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+                while (System.currentTimeMillis() < deadline) {
+                    final var newState = readState();
+                    if (newState != null) {
+                        return newState;
+                    }
+                    if (!process.isAlive()) {
+                        throw new IOException("The compiler daemon exited with code " + process.exitValue()
+                                + ", see the log file [" + logFile + "].");
+                    }
+                    try {
+                        Thread.sleep(100);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        process.destroy();
+                        throw new IOException("Interrupted while starting the compiler daemon", e);
+                    }
+                }
+                process.destroy();
+                throw new IOException("The compiler daemon did not start within " + START_TIMEOUT_MILLIS + " ms.");
+            }
+        }
+    }
+
+    private List<String> createCommand() {
+        final var command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classpath.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator)));
+        command.add(CompilerDaemon.class.getName());
+        command.add(getStateFile().getAbsolutePath());
+        command.add(Long.toString(idleTimeoutMillis));
+        return command;
+    }
+
+    private Properties readState() throws IOException {
+        try {
+            return CompilerDaemon.readStateFile(getStateFile());
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private File getStateFile() {
+        return new File(daemonDir, name + ".properties");
+    }
+
+    /**
+     * The daemon runs the closure compiler and the classes of this plugin, so it needs the classpath of the plugin.
+     * Classes provided by Maven itself, such as the plugin API, are not part of the class loader of the plugin, so we
+     * add their location explicitly.
+     */
+    private static List<File> getClasspath(ClassLoader classLoader) {
+        final Set<File> classpath = new LinkedHashSet<>();
+        if (classLoader instanceof URLClassLoader) {
+            for (final var url : ((URLClassLoader) classLoader).getURLs()) {
+                addToClasspath(classpath, url);
+            }
+        }
+        for (final var type : List.of(CompilerDaemon.class, Compiler.class, Log.class)) {
+            final var codeSource = type.getProtectionDomain().getCodeSource();
+            if (codeSource != null) {
+                addToClasspath(classpath, codeSource.getLocation());
+            }
+        }
+        return new ArrayList<>(classpath);
+    }
+
+    private static void addToClasspath(Set<File> classpath, URL url) {
+        if (url != null && "file".equalsIgnoreCase(url.getProtocol())) {
+            try {
+                classpath.add(new File(url.toURI()));
+            } catch (final URISyntaxException | IllegalArgumentException e) {
+                // Not a local file, cannot be used by the daemon
+            }
+        }
+    }
+}
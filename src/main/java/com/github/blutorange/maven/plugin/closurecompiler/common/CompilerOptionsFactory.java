@@ -0,0 +1,327 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import com.github.blutorange.maven.plugin.closurecompiler.plugin.MinifyMojo;
+import com.google.javascript.jscomp.CheckLevel;
+import com.google.javascript.jscomp.CompilationLevel;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.CompilerOptions.ChunkOutputType;
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.jscomp.DiagnosticGroup;
+import com.google.javascript.jscomp.DiagnosticGroups;
+import com.google.javascript.jscomp.WarningLevel;
+import com.google.javascript.jscomp.deps.ModuleLoader.ResolutionMode;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringEscapeUtils;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Creates the {@link CompilerOptions} for the closure compiler, as configured by the mojo. Each compilation needs its
+ * own options, since the compiler and its passes modify the options. The configuration is read and validated once, when
+ * the factory is created. Afterwards, new options can be created cheaply by setting the stored values, without copying
+ * an existing options instance. The factory is immutable, so it may be shared by tasks running concurrently. It is
+ * serializable, so that it can be sent to the compiler daemon.
+ */
+public final class CompilerOptionsFactory implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final String BINARY_PREFIX = "0b";
+
+    private final boolean allowDynamicImport;
+    private final String dynamicImportAlias;
+    private final boolean angularPass;
+    private final boolean assumeFunctionWrapper;
+    private final boolean closurePass;
+    private final ChunkOutputType chunkOutputType;
+    private final boolean colorizeErrorOutput;
+    private final CompilationLevel compilationLevel;
+    private final boolean debug;
+    private final Map<String, Object> defineReplacements;
+    private final boolean emitUseStrict;
+    private final CompilerOptions.Environment environment;
+    private final List<String> extraAnnotationNames;
+    private final List<String> forceInjectLibs;
+    private final boolean injectLibraries;
+    private final boolean isolatePolyfills;
+    private final LanguageMode languageIn;
+    private final LanguageMode languageOut;
+    private final ResolutionMode moduleResolution;
+    private final List<String> moduleRoots;
+    private final String outputCharset;
+    private final boolean preferSingleQuotes;
+    private final boolean prettyPrint;
+    private final boolean processCommonJsModules;
+    private final String renamePrefix;
+    private final String renamePrefixNamespace;
+    private final boolean rewritePolyfills;
+    private final boolean strictModeInput;
+    private final boolean trustedStrings;
+    private final boolean useTypesForOptimization;
+    private final WarningLevel warningLevel;
+    private final Map<DiagnosticGroup, CheckLevel> warningLevels;
+    private final String fingerprint;
+
+    /**
+     * Creates a new factory with the closure compiler options from the mojo configuration.
+     *
+     * @param mojo Mojo with the options.
+     * @throws MojoFailureException When the configuration is invalid or cannot be parsed.
+     */
+    public CompilerOptionsFactory(MinifyMojo mojo) throws MojoFailureException {
+        this.allowDynamicImport = mojo.isClosureAllowDynamicImport();
+        this.dynamicImportAlias = mojo.getClosureDynamicImportAlias();
+        this.angularPass = mojo.isClosureAngularPass();
+        this.assumeFunctionWrapper = mojo.isClosureAssumeFunctionWrapper();
+        this.closurePass = mojo.isClosureProcessCommonJsModules() ? true : mojo.isClosureProcessClosurePrimitives();
+        this.chunkOutputType = mojo.getClosureChunkOutputType();
+        this.colorizeErrorOutput = mojo.isClosureColorizeErrorOutput();
+        this.compilationLevel = mojo.getClosureCompilationLevel();
+        this.debug = mojo.isClosureDebug();
+        this.defineReplacements = createDefineReplacements(mojo);
+        this.emitUseStrict = mojo.isClosureEmitUseStrict();
+        this.environment = mojo.getClosureEnvironment();
+        this.extraAnnotationNames = List.copyOf(mojo.getClosureExtraAnnotations());
+        this.forceInjectLibs = List.copyOf(mojo.getClosureForceInjectLibs());
+        this.injectLibraries = mojo.isClosureInjectLibraries();
+        this.isolatePolyfills = mojo.isClosureIsolatePolyfills();
+        this.languageIn = mojo.getClosureLanguageIn();
+        this.languageOut = mojo.getClosureLanguageOut();
+        this.moduleResolution = mojo.getClosureModuleResolution();
+        this.moduleRoots = List.copyOf(mojo.getClosureJsModuleRoots());
+        this.outputCharset = Charset.forName(mojo.getEncoding()).name();
+        this.preferSingleQuotes = mojo.isClosurePreferSingleQuotes();
+        this.prettyPrint = mojo.isClosurePrettyPrint();
+        this.processCommonJsModules = mojo.isClosureProcessCommonJsModules();
+        this.renamePrefix = mojo.getClosureRenameVariablePrefix();
+        this.renamePrefixNamespace = mojo.getClosureRenamePrefixNamespace();
+        this.rewritePolyfills = mojo.isClosureRewritePolyfills();
+        this.strictModeInput = mojo.isClosureStrictModeInput();
+        this.trustedStrings = mojo.isClosureTrustedStrings();
+        this.useTypesForOptimization = mojo.isClosureUseTypesForOptimization();
+        this.warningLevel = mojo.getClosureWarningLevel();
+        this.warningLevels = createWarningLevels(mojo);
+        this.fingerprint = new Fingerprint()
+                .add("allowDynamicImport", allowDynamicImport)
+                .add("dynamicImportAlias", dynamicImportAlias)
+                .add("angularPass", angularPass)
+                .add("assumeFunctionWrapper", assumeFunctionWrapper)
+                .add("closurePass", closurePass)
+                .add("chunkOutputType", chunkOutputType)
+                .add("compilationLevel", compilationLevel)
+                .add("debug", debug)
+                .add("defineReplacements", defineReplacements)
+                .add("emitUseStrict", emitUseStrict)
+                .add("environment", environment)
+                .add("extraAnnotationNames", extraAnnotationNames)
+                .add("forceInjectLibs", forceInjectLibs)
+                .add("injectLibraries", injectLibraries)
+                .add("isolatePolyfills", isolatePolyfills)
+                .add("languageIn", languageIn)
+                .add("languageOut", languageOut)
+                .add("moduleResolution", moduleResolution)
+                .add("moduleRoots", moduleRoots)
+                .add("outputCharset", outputCharset)
+                .add("preferSingleQuotes", preferSingleQuotes)
+                .add("prettyPrint", prettyPrint)
+                .add("processCommonJsModules", processCommonJsModules)
+                .add("renamePrefix", renamePrefix)
+                .add("renamePrefixNamespace", renamePrefixNamespace)
+                .add("rewritePolyfills", rewritePolyfills)
+                .add("strictModeInput", strictModeInput)
+                .add("trustedStrings", trustedStrings)
+                .add("useTypesForOptimization", useTypesForOptimization)
+                .add("warningLevel", warningLevel)
+                .add("warningLevels", mojo.getClosureWarningLevels())
+                .build();
+    }
+
+    /**
+     * @return A fingerprint of the configured options. Changes when any option that affects the created compiler
+     *     options changes.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /** @return How the paths of ES6 modules are resolved. */
+    ResolutionMode getModuleResolution() {
+        return moduleResolution;
+    }
+
+    /** @return Path prefixes that are removed from ES6 and CommonJS modules. */
+    List<String> getModuleRoots() {
+        return moduleRoots;
+    }
+
+    /** @return Whether CommonJS modules are processed. */
+    boolean isProcessCommonJsModules() {
+        return processCommonJsModules;
+    }
+
+    /**
+     * Creates new compiler options with the configured values.
+     *
+     * @return New compiler options, not shared with any other compilation.
+     */
+    public CompilerOptions create() {
+        CompilerOptions options = new CompilerOptions();
+
+        options.setAllowDynamicImport(allowDynamicImport);
+        if (dynamicImportAlias != null && !dynamicImportAlias.isEmpty()) {
+            options.setDynamicImportAlias(dynamicImportAlias);
+        }
+        options.setAngularPass(angularPass);
+        options.setClosurePass(closurePass);
+        options.setChunkOutputType(chunkOutputType);
+        options.setColorizeErrorOutput(colorizeErrorOutput);
+        options.setDefineReplacements(defineReplacements);
+        options.setEmitUseStrict(emitUseStrict);
+        options.setEnvironment(environment);
+        options.setExtraAnnotationNames(extraAnnotationNames);
+        if (!forceInjectLibs.isEmpty()) {
+            options.setForceLibraryInjection(forceInjectLibs);
+        }
+        options.setLanguageIn(languageIn);
+        options.setLanguageOut(languageOut);
+        options.setModuleResolutionMode(moduleResolution);
+        options.setOutputCharset(Charset.forName(outputCharset));
+        options.setPreferSingleQuotes(preferSingleQuotes);
+        options.setIsolatePolyfills(isolatePolyfills);
+        options.setPrettyPrint(prettyPrint);
+        options.setPreventLibraryInjection(!injectLibraries);
+        options.setProcessCommonJSModules(processCommonJsModules);
+        if (StringUtils.isNotEmpty(renamePrefix)) {
+            options.setRenamePrefix(renamePrefix);
+        }
+        if (StringUtils.isNotEmpty(renamePrefixNamespace)) {
+            options.setRenamePrefixNamespace(renamePrefixNamespace);
+        }
+        options.setRewritePolyfills(rewritePolyfills);
+        options.setStrictModeInput(strictModeInput);
+        options.setTrustedStrings(trustedStrings);
+        options.setModuleRoots(moduleRoots);
+
+        // Apply compilation level
+        // This overwrites some other options and should be called last.
+        compilationLevel.setOptionsForCompilationLevel(options);
+        if (assumeFunctionWrapper) {
+            compilationLevel.setWrappedOutputOptimizations(options);
+        }
+        if (debug) {
+            compilationLevel.setDebugOptionsForCompilationLevel(options);
+        }
+        if (useTypesForOptimization) {
+            compilationLevel.setTypeBasedOptimizationOptions(options);
+        }
+
+        // Warning levels. First apply default, then specified overrides.
+        warningLevel.setOptionsForWarningLevel(options);
+        warningLevels.forEach(options::setWarningLevel);
+
+        return options;
+    }
+
+    private static Map<String, Object> createDefineReplacements(MinifyMojo mojo) {
+        Map<String, Object> defineReplacements = new HashMap<>();
+        for (Map.Entry<String, String> defineReplacement :
+                mojo.getClosureDefineReplacements().entrySet()) {
+            String key = defineReplacement.getKey();
+            String value = nullToEmpty(defineReplacement.getValue()).trim();
+
+            if (isNullOrEmpty(value)) {
+                throw new RuntimeException("Define replacement " + key + " does not have a value.");
+            }
+
+            if ("true".equals(value)) {
+                defineReplacements.put(key, Boolean.TRUE);
+                continue;
+            }
+
+            if ("false".equals(value)) {
+                defineReplacements.put(key, Boolean.FALSE);
+                continue;
+            }
+
+            // Check for quoted string
+            if (value.startsWith("\"") || value.startsWith("'")) {
+                defineReplacements.put(
+                        key, StringEscapeUtils.unescapeEcmaScript(value.substring(1, value.length() - 1)));
+                continue;
+            }
+
+            if (value.startsWith(BINARY_PREFIX)) {
+                try {
+                    defineReplacements.put(key, Integer.valueOf(value.substring(BINARY_PREFIX.length()), 2));
+                    continue;
+                } catch (NumberFormatException e) {
+                    mojo.getLog().warn("Cannot parse a (binary) number: " + value, e);
+                    // Not a valid binary Integer, try next type
+                }
+            }
+
+            if (value.startsWith("0") && value.charAt(1) != '.') {
+                try {
+                    defineReplacements.put(key, Integer.valueOf(value.substring(1), 8));
+                    continue;
+                } catch (NumberFormatException e) {
+                    mojo.getLog().warn("Cannot parse an (octal) number: " + value, e);
+                    // Not a valid binary Integer, try next type
+                }
+            }
+
+            try {
+                defineReplacements.put(key, Integer.valueOf(value, 10));
+                continue;
+            } catch (NumberFormatException e) {
+                // Not a valid Integer, try next type
+            }
+
+            try {
+                defineReplacements.put(key, Double.valueOf(value));
+                continue;
+            } catch (NumberFormatException e) {
+                mojo.getLog().warn("Cannot parse as a number: " + value, e);
+                // Not a valid Double, try next type
+            }
+
+            // Default to string
+            mojo.getLog()
+                    .warn("Cannot parse define replacement value: '" + value + "'. Use quotation marks for a string.");
+            defineReplacements.put(key, value);
+        }
+        return defineReplacements;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static boolean isNullOrEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static Map<DiagnosticGroup, CheckLevel> createWarningLevels(MinifyMojo mojo) throws MojoFailureException {
+        Map<DiagnosticGroup, CheckLevel> warningLevels = new HashMap<>();
+        for (Map.Entry<String, String> warningLevel :
+                mojo.getClosureWarningLevels().entrySet()) {
+            DiagnosticGroup diagnosticGroup = DiagnosticGroups.forName(warningLevel.getKey());
+            if (diagnosticGroup == null) {
+                throw new MojoFailureException("Failed to process closureWarningLevels: " + warningLevel.getKey()
+                        + " is an invalid DiagnosticGroup");
+            }
+
+            try {
+                CheckLevel checkLevel = CheckLevel.valueOf(warningLevel.getValue());
+                warningLevels.put(diagnosticGroup, checkLevel);
+            } catch (IllegalArgumentException e) {
+                throw new MojoFailureException("Failed to process closureWarningLevels: " + warningLevel.getKey()
+                        + " is an invalid CheckLevel");
+            }
+        }
+        return warningLevels;
+    }
+}
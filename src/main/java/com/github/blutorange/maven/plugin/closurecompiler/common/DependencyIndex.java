@@ -0,0 +1,337 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.javascript.jscomp.BasicErrorManager;
+import com.google.javascript.jscomp.CheckLevel;
+import com.google.javascript.jscomp.JSError;
+import com.google.javascript.jscomp.ModuleIdentifier;
+import com.google.javascript.jscomp.deps.BrowserModuleResolver;
+import com.google.javascript.jscomp.deps.DependencyInfo;
+import com.google.javascript.jscomp.deps.JsFileRegexParser;
+import com.google.javascript.jscomp.deps.ModuleLoader;
+import com.google.javascript.jscomp.deps.SimpleDependencyInfo;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Index with the namespaces and modules that each source file of a bundle provides and requires. It is used to find the
+ * source files that are reachable from the entry points, when the dependency mode prunes unused files. Files that are
+ * not reachable do not need to be read or passed to the closure compiler, and changes to them do not require the bundle
+ * to be processed again.
+ *
+ * <p>The index is stored in the manifest directory, each set of output files has its own index file. Only files whose
+ * size or modification date changed are parsed again. Files are parsed with the regular expression based parser of the
+ * closure compiler, which is much faster than a full parse, but does not recognize every import. When a file may
+ * contain imports that were not recognized, or when a required namespace or module is not provided by any source file,
+ * the reachable files cannot be determined reliably. All source files are used in that case.
+ */
+final class DependencyIndex {
+    /** Occurrences of imports and requires, used to check that the regular expression parser found all of them. */
+    private static final Pattern REQUIRE_PATTERN =
+            Pattern.compile("\\bfrom\\s*['\"]|\\bimport\\s*['\"]|\\bgoog\\.require(?:Type)?\\s*\\(");
+
+    /** Annotation of the base.js file of the closure library, which provides the {@code goog} namespace. */
+    private static final String PROVIDE_GOOG = "@provideGoog";
+
+    private static final String GOOG = "goog";
+
+    private final File indexFile;
+
+    private final String configuration;
+
+    private final File baseDir;
+
+    private final Charset encoding;
+
+    private final List<String> moduleRoots;
+
+    private final DirectoryIndex directoryIndex;
+
+    private final Log log;
+
+    private final Index index;
+
+    private List<String> reachablePaths;
+
+    /**
+     * @param manifestDir Directory where the index files are stored.
+     * @param outputFiles Output files of the bundle.
+     * @param baseDir Directory to which the paths of the source files are relative, as seen by the closure compiler.
+     * @param encoding Encoding of the source files.
+     * @param moduleRoots Path prefixes that are removed from ES6 modules.
+     * @param directoryIndex Index with the sizes and modification dates of the source files.
+     * @param log Log for messages about files that cannot be pruned.
+     * @throws IOException When the index file could not be read.
+     */
+    DependencyIndex(
+            File manifestDir,
+            Collection<File> outputFiles,
+            File baseDir,
+            Charset encoding,
+            List<String> moduleRoots,
+            DirectoryIndex directoryIndex,
+            Log log)
+            throws IOException {
+        final var key = new StringBuilder();
+        for (final var outputFile : outputFiles) {
+            key.append(outputFile.getAbsolutePath()).append('\n');
+        }
+        this.indexFile =
+                new File(manifestDir, DigestHelper.digest(key.toString().getBytes(UTF_8)) + ".deps.json");
+        this.configuration = new Fingerprint()
+                .add("compilerVersion", BuiltinExterns.getCompilerVersion())
+                .add("baseDir", baseDir.getAbsolutePath())
+                .add("encoding", encoding.name())
+                .add("moduleRoots", moduleRoots)
+                .build();
+        this.baseDir = baseDir;
+        this.encoding = encoding;
+        this.moduleRoots = moduleRoots;
+        this.directoryIndex = directoryIndex;
+        this.log = log;
+        this.index = read();
+    }
+
+    /**
+     * Finds the source files that are reachable from the given entry points. Source files that changed since the index
+     * was last written are parsed again.
+     *
+     * @param srcFiles All source files of the bundle.
+     * @param entryPoints Entry points of the closure compiler.
+     * @param legacy Whether files that do not provide anything are entry points as well, see
+     *     {@link com.google.javascript.jscomp.DependencyOptions.DependencyMode#PRUNE_LEGACY}.
+     * @return The reachable source files, in the same order as the given source files. All source files when the
+     *     reachable files cannot be determined reliably.
+     * @throws IOException When a source file could not be read.
+     */
+    List<File> findReachableFiles(List<File> srcFiles, Collection<ModuleIdentifier> entryPoints, boolean legacy)
+            throws IOException {
+        final var canonicalPaths = new HashMap<File, Path>();
+        final var files = new LinkedHashMap<String, File>();
+        for (final var srcFile : srcFiles) {
+            files.put(FileHelper.relativizePath(baseDir, srcFile, canonicalPaths), srcFile);
+        }
+        updateEntries(files);
+        final var reachable = findReachablePaths(files.keySet(), entryPoints, legacy);
+        final var reachableFiles = new ArrayList<File>();
+        if (reachable == null) {
+            reachableFiles.addAll(srcFiles);
+        } else {
+            files.forEach((path, file) -> {
+                if (reachable.contains(path)) {
+                    reachableFiles.add(file);
+                }
+            });
+        }
+        reachablePaths = new ArrayList<>();
+        for (final var file : reachableFiles) {
+            reachablePaths.add(FileHelper.relativizePath(baseDir, file, canonicalPaths));
+        }
+        return reachableFiles;
+    }
+
+    /**
+     * Checks whether other source files are reachable than when the index was last written. This happens e.g. when a
+     * file that provides a namespace was added or removed. Such changes are not detected by checking the reachable
+     * files for changes.
+     *
+     * @return Whether the reachable files differ from those of the last build. <code>false</code> when there is no
+     *     index yet.
+     */
+    boolean haveReachableFilesChanged() {
+        return index.reachable != null && !Objects.equals(index.reachable, reachablePaths);
+    }
+
+    /**
+     * Writes the index, together with the reachable files that were found last. Should be called once the output files
+     * were created from the reachable files.
+     *
+     * @throws IOException When the index could not be written.
+     */
+    void write() throws IOException {
+        index.configuration = configuration;
+        index.reachable = reachablePaths;
+        final var manifestDir = indexFile.getParentFile().toPath();
+        Files.createDirectories(manifestDir);
+        // Write to a temporary file first, so that no other process ever reads a partially written index
+        final var tempFile = Files.createTempFile(manifestDir, indexFile.getName(), ".tmp");
+        try {
+            Files.writeString(tempFile, new Gson().toJson(index), UTF_8);
+            Files.move(tempFile, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void updateEntries(Map<String, File> files) throws IOException {
+        final var inputs = new ArrayList<DependencyInfo>();
+        for (final var path : files.keySet()) {
+            inputs.add(SimpleDependencyInfo.builder(path, path).build());
+        }
+        final var moduleLoader = ModuleLoader.builder()
+                .setModuleRoots(moduleRoots)
+                .setInputs(inputs)
+                .setFactory(BrowserModuleResolver.FACTORY)
+                .setPathResolver(ModuleLoader.PathResolver.RELATIVE)
+                .build();
+        final var errorManager = new SilentErrorManager();
+        final var parser = new JsFileRegexParser(errorManager);
+        parser.setModuleLoader(moduleLoader);
+
+        final var entries = new HashMap<String, Entry>();
+        for (final var file : files.entrySet()) {
+            final var path = file.getKey();
+            final var srcFile = file.getValue();
+            final var size = directoryIndex.length(srcFile);
+            final var lastModified = directoryIndex.lastModified(srcFile);
+            final var existing = index.files.get(path);
+            if (existing != null && existing.size == size && existing.lastModified == lastModified) {
+                entries.put(path, existing);
+                continue;
+            }
+            final var content = new String(Files.readAllBytes(srcFile.toPath()), encoding);
+            final var errorCount = errorManager.getErrorCount();
+            final var info = parser.parseFile(path, path, content);
+            final var entry = new Entry();
+            entry.size = size;
+            entry.lastModified = lastModified;
+            entry.provides = new ArrayList<>(info.getProvides());
+            entry.requires = new ArrayList<>();
+            info.getRequires().forEach(require -> entry.requires.add(require.getSymbol()));
+            entry.requires.addAll(info.getTypeRequires());
+            entry.providesGoog = content.contains(PROVIDE_GOOG);
+            entry.usesGoog = info.isGoogModule()
+                    || entry.provides.stream().anyMatch(provide -> !provide.startsWith("module$"))
+                    || info.getRequires().stream()
+                            .anyMatch(require -> require.getType() != DependencyInfo.Require.Type.ES6_IMPORT);
+            entry.uncertain = errorManager.getErrorCount() > errorCount
+                    || REQUIRE_PATTERN.matcher(content).results().count() > entry.requires.size();
+            entries.put(path, entry);
+        }
+        index.files = entries;
+    }
+
+    /** @return The paths of the reachable files, or <code>null</code> when they cannot be determined reliably. */
+    private Set<String> findReachablePaths(
+            Collection<String> paths, Collection<ModuleIdentifier> entryPoints, boolean legacy) {
+        if (!legacy && entryPoints.isEmpty()) {
+            return null;
+        }
+        final var providers = new HashMap<String, List<String>>();
+        final var queue = new ArrayDeque<String>();
+        for (final var path : paths) {
+            final var entry = index.files.get(path);
+            final var provides = new ArrayList<>(entry.provides);
+            // Every file can be used as an entry point via its path
+            provides.add(ModuleIdentifier.forFile(path).getClosureNamespace());
+            if (entry.providesGoog) {
+                provides.add(GOOG);
+            }
+            provides.forEach(provide ->
+                    providers.computeIfAbsent(provide, key -> new ArrayList<>()).add(path));
+            if (legacy && entry.provides.isEmpty()) {
+                queue.add(path);
+            }
+        }
+        for (final var entryPoint : entryPoints) {
+            final var entryPointProviders = providers.get(entryPoint.getClosureNamespace());
+            if (entryPointProviders == null) {
+                log.debug("Entry point [" + entryPoint + "] is not provided by any source file, cannot prune files.");
+                return null;
+            }
+            queue.addAll(entryPointProviders);
+        }
+
+        final var reachable = new HashSet<String>();
+        while (!queue.isEmpty()) {
+            final var path = queue.remove();
+            if (!reachable.add(path)) {
+                continue;
+            }
+            final var entry = index.files.get(path);
+            if (entry.uncertain) {
+                log.debug("Dependencies of [" + path + "] cannot be determined reliably, cannot prune files.");
+                return null;
+            }
+            for (final var require : entry.requires) {
+                final var requireProviders = providers.get(require);
+                if (requireProviders == null) {
+                    log.debug("[" + require + "] required by [" + path
+                            + "] is not provided by any source file, cannot prune files.");
+                    return null;
+                }
+                queue.addAll(requireProviders);
+            }
+            // The closure compiler adds the base.js of the closure library to files that use closure primitives
+            if (entry.usesGoog) {
+                queue.addAll(providers.getOrDefault(GOOG, List.of()));
+            }
+        }
+        return reachable;
+    }
+
+    private Index read() throws IOException {
+        if (indexFile.isFile()) {
+            try {
+                final var stored = new Gson().fromJson(Files.readString(indexFile.toPath(), UTF_8), Index.class);
+                if (stored != null && stored.files != null && Objects.equals(stored.configuration, configuration)) {
+                    return stored;
+                }
+            } catch (JsonParseException e) {
+                // Written by an incompatible version, parse all files again
+            }
+        }
+        return new Index();
+    }
+
+    private static final class SilentErrorManager extends BasicErrorManager {
+        @Override
+        public void println(CheckLevel level, JSError error) {}
+
+        @Override
+        protected void printSummary() {}
+    }
+
+    private static final class Index {
+        private String configuration;
+
+        private Map<String, Entry> files = new HashMap<>();
+
+        private List<String> reachable;
+    }
+
+    private static final class Entry {
+        private long size;
+
+        private long lastModified;
+
+        private List<String> provides;
+
+        private List<String> requires;
+
+        private boolean providesGoog;
+
+        private boolean usesGoog;
+
+        private boolean uncertain;
+    }
+}
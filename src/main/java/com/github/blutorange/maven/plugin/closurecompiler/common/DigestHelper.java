@@ -0,0 +1,60 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** Helper methods for computing SHA-256 digests of files and data. */
+public final class DigestHelper {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private DigestHelper() {}
+
+    /**
+     * @param data Data to digest.
+     * @return The SHA-256 digest of the given data, as a lower case hex string.
+     */
+    public static String digest(byte[] data) {
+        return toHex(newMessageDigest().digest(data));
+    }
+
+    /**
+     * @param file File to digest.
+     * @return The SHA-256 digest of the content of the given file, as a lower case hex string.
+     * @throws IOException When the file could not be read.
+     */
+    public static String digest(File file) throws IOException {
+        final var messageDigest = newMessageDigest();
+        final var buffer = new byte[8192];
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+        return toHex(messageDigest.digest());
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final var hex = new char[bytes.length * 2];
+        for (var i = 0; i < bytes.length; ++i) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.collections4.CollectionUtils;
+
+/**
+ * Index of the files in the source directories of all bundles of an execution, with their sizes and modification dates.
+ * Each source directory is walked only once, when the included files of the first bundle in that directory are
+ * requested, with the include patterns of all bundles and the exclude patterns common to all bundles. The files of each
+ * bundle are then selected from that snapshot, without accessing the file system again. The snapshot of a directory
+ * does not change afterwards, so a new index must be created to pick up added or removed files. The output files of a
+ * bundle may be source files of another bundle, so the sizes and modification dates of files that were written since
+ * must be discarded via {@link #invalidate(File)}.
+ */
+public final class DirectoryIndex {
+    private final List<String> includes;
+
+    private final List<String> excludes;
+
+    private final Map<File, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * @param includes The include patterns of each bundle, relative to their source directory.
+     * @param excludes The exclude patterns of each bundle, relative to their source directory.
+     */
+    public DirectoryIndex(
+            Collection<? extends Collection<String>> includes, Collection<? extends Collection<String>> excludes) {
+        final var allIncludes = new LinkedHashSet<String>();
+        for (final var bundleIncludes : includes) {
+            if (bundleIncludes != null) {
+                allIncludes.addAll(bundleIncludes);
+            }
+        }
+        LinkedHashSet<String> commonExcludes = null;
+        for (final var bundleExcludes : excludes) {
+            if (commonExcludes == null) {
+                commonExcludes = new LinkedHashSet<>(bundleExcludes != null ? bundleExcludes : List.of());
+            } else {
+                commonExcludes.retainAll(bundleExcludes != null ? bundleExcludes : List.of());
+            }
+        }
+        this.includes = new ArrayList<>(allIncludes);
+        this.excludes = commonExcludes != null ? new ArrayList<>(commonExcludes) : List.of();
+    }
+
+    /**
+     * Same as {@link FileHelper#getIncludedFiles(File, List, List)}, but selects the files from the snapshot of the
+     * given directory. Falls back to scanning the directory when the given include or exclude patterns were not passed
+     * to the constructor.
+     *
+     * @param baseDir Base directory of the includes and excludes.
+     * @param includes List of specified includes
+     * @param excludes List of specified excludes
+     * @return A list of all files matching the given includes and excludes, ordered by the index of the first include
+     *     that matches the file, then by their path.
+     */
+    public List<File> getIncludedFiles(File baseDir, List<String> includes, List<String> excludes) {
+        if (CollectionUtils.isEmpty(includes) || !baseDir.exists()) {
+            return new ArrayList<>();
+        }
+        if (!this.includes.containsAll(includes) || !excludes.containsAll(this.excludes)) {
+            return FileHelper.getIncludedFiles(baseDir, includes, excludes);
+        }
+        final var dir = FileHelper.absoluteFileToCanonicalFile(baseDir.getAbsoluteFile());
+        final var snapshot = snapshots.computeIfAbsent(dir, Snapshot::new);
+        return new FileScanner(dir, includes, excludes).select(snapshot.files);
+    }
+
+    /**
+     * @param file A canonical file.
+     * @return The modification date of the file when its directory was indexed. When the file was not indexed or was
+     *     invalidated since, its current modification date.
+     */
+    public long lastModified(File file) {
+        final var scannedFile = find(file);
+        return scannedFile != null ? scannedFile.getLastModified() : file.lastModified();
+    }
+
+    /**
+     * @param file A canonical file.
+     * @return The size of the file in bytes when its directory was indexed. When the file was not indexed or was
+     *     invalidated since, its current size.
+     */
+    public long length(File file) {
+        final var scannedFile = find(file);
+        return scannedFile != null ? scannedFile.getSize() : file.length();
+    }
+
+    /**
+     * Discards the size and modification date of the given file, such as when it was written. They are read from the
+     * file system again afterwards.
+     *
+     * @param file A file that may have changed since its directory was indexed.
+     */
+    public void invalidate(File file) {
+        final var canonicalFile = FileHelper.absoluteFileToCanonicalFile(file.getAbsoluteFile());
+        for (final var snapshot : snapshots.values()) {
+            snapshot.filesByPath.remove(canonicalFile);
+        }
+    }
+
+    private FileScanner.ScannedFile find(File file) {
+        for (final var snapshot : snapshots.values()) {
+            final var scannedFile = snapshot.filesByPath.get(file);
+            if (scannedFile != null) {
+                return scannedFile;
+            }
+        }
+        return null;
+    }
+
+    /** The files in a directory that match any of the include patterns and none of the common exclude patterns. */
+    private final class Snapshot {
+        private final List<FileScanner.ScannedFile> files;
+
+        private final Map<File, FileScanner.ScannedFile> filesByPath;
+
+        Snapshot(File dir) {
+            this.files = new FileScanner(dir, includes, excludes).scanWithAttributes();
+            this.filesByPath = new ConcurrentHashMap<>();
+            files.forEach(file -> filesByPath.putIfAbsent(file.getFile(), file));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Remote cache that stores its entries in a directory, such as a network share mounted by all machines. Entries are
+ * written to a temporary file first and then moved to their final location, so that other machines never read a
+ * partially written entry. Entries are never removed, the size of the directory must be managed externally.
+ */
+public final class DirectoryRemoteCache implements RemoteCache {
+    private final File directory;
+
+    /** @param directory Directory where the entries are stored. */
+    public DirectoryRemoteCache(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        try {
+            return Files.readAllBytes(getEntryFile(key).toPath());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] entry) throws IOException {
+        final var entryFile = getEntryFile(key);
+        final var parentDir = entryFile.getParentFile().toPath();
+        Files.createDirectories(parentDir);
+        final var tempFile = Files.createTempFile(parentDir, key, ".tmp");
+        try {
+            Files.write(tempFile, entry);
+            Files.move(tempFile, entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private File getEntryFile(String key) {
+        return new File(new File(directory, key.substring(0, 2)), key + ".zip");
+    }
+
+    /** Provider for URLs with the {@code file:} scheme. */
+    static final class Provider implements RemoteCacheProvider {
+        @Override
+        public boolean supports(URI uri) {
+            return "file".equalsIgnoreCase(uri.getScheme());
+        }
+
+        @Override
+        public RemoteCache create(URI uri) {
+            return new DirectoryRemoteCache(new File(uri));
+        }
+    }
+}
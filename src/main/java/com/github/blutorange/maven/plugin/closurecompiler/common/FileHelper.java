@@ -5,19 +5,14 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Map;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
-import org.codehaus.plexus.util.DirectoryScanner;
 
 /** Helper methods for working with files. */
 public class FileHelper {
@@ -25,16 +20,39 @@ public class FileHelper {
 
     /** @return The path of the given {@code target}, relative to the specified {@code base} file. */
     public static String relativizePath(File base, File target) {
-        final var targetPath =
-                absoluteFileToCanonicalFile(target.getAbsoluteFile()).toPath();
+        return relativizePath(base, target, null);
+    }
+
+    /**
+     * Same as {@link #relativizePath(File, File)}, but looks up the canonical paths of the files in the given cache
+     * first, for when many paths are made relative to the same base. The file system is only accessed for files that
+     * are not in the cache yet.
+     *
+     * @param base Base file to which the target is made relative, may be <code>null</code>.
+     * @param target Target file to make relative.
+     * @param canonicalPaths Cache with the canonical path of each absolute file, or <code>null</code> to not cache
+     *     anything.
+     * @return The path of the given {@code target}, relative to the specified {@code base} file.
+     */
+    public static String relativizePath(File base, File target, Map<File, Path> canonicalPaths) {
+        final var targetPath = getCanonicalPath(target, canonicalPaths);
         if (base == null) {
             return targetPath.toString();
         }
 
-        final var basePath = absoluteFileToCanonicalFile(base.getAbsoluteFile()).toPath();
+        final var basePath = getCanonicalPath(base, canonicalPaths);
         return basePath.relativize(targetPath).toString().replace(File.separatorChar, '/');
     }
 
+    private static Path getCanonicalPath(File file, Map<File, Path> canonicalPaths) {
+        final var absoluteFile = file.getAbsoluteFile();
+        if (canonicalPaths == null) {
+            return absoluteFileToCanonicalFile(absoluteFile).toPath();
+        }
+        return canonicalPaths.computeIfAbsent(
+                absoluteFile, key -> absoluteFileToCanonicalFile(key).toPath());
+    }
+
     /**
      * Makes target relative to base. Allows base and target to be relative paths.
      *
@@ -100,12 +118,14 @@ public class FileHelper {
     }
 
     /**
-     * Processes the includes and excludes relative to the given base directory, and returns all included files.
+     * Processes the includes and excludes relative to the given base directory, and returns all included files. The
+     * base directory is walked only once for all includes.
      *
      * @param baseDir Base directory of the includes and excludes.
      * @param includes List of specified includes
      * @param excludes List of specified excludes
-     * @return A list of all files matching the given includes and excludes.
+     * @return A list of all files matching the given includes and excludes, ordered by the index of the first include
+     *     that matches the file, then by their path.
      */
     public static List<File> getIncludedFiles(File baseDir, List<String> includes, List<String> excludes) {
         if (CollectionUtils.isEmpty(includes)) {
@@ -114,26 +134,7 @@ public class FileHelper {
         if (!baseDir.exists()) {
             return new ArrayList<>();
         }
-        final var excludesArray = excludes.toArray(new String[0]);
-
-        return IntStream.range(0, includes.size())
-                .mapToObj(i -> Pair.of(i, includes.get(i)))
-                .flatMap(include -> {
-                    final var scanner = new DirectoryScanner();
-                    scanner.setIncludes(new String[] {include.getRight()});
-                    scanner.setExcludes(excludesArray);
-                    scanner.addDefaultExcludes();
-                    scanner.setBasedir(baseDir);
-                    scanner.scan();
-                    return Arrays.stream(scanner.getIncludedFiles()).map(includedFilename -> {
-                        final var includedFile = new File(baseDir, includedFilename);
-                        return Pair.of(include.getLeft(), absoluteFileToCanonicalFile(includedFile));
-                    });
-                })
-                .sorted()
-                .map(Pair::getRight)
-                .filter(distinctByKey(File::getAbsolutePath))
-                .collect(Collectors.toList());
+        return new FileScanner(baseDir, includes, excludes).scan();
     }
 
     /**
@@ -150,11 +151,6 @@ public class FileHelper {
         }
     }
 
-    private static <T> Predicate<T> distinctByKey(Function<? super T, ?> keyExtractor) {
-        final var seen = new HashSet<>();
-        return t -> seen.add(keyExtractor.apply(t));
-    }
-
     public static boolean startsWithBom(File file, Charset encoding) throws IOException {
         try (final var input = new FileInputStream(file)) {
             try (final var reader = new InputStreamReader(input, encoding)) {
@@ -1,6 +1,9 @@
 package com.github.blutorange.maven.plugin.closurecompiler.common;
 
+import com.github.blutorange.maven.plugin.closurecompiler.plugin.CopyMode;
 import com.github.blutorange.maven.plugin.closurecompiler.plugin.SkipMode;
+import java.io.File;
+import java.util.List;
 
 public final class FileProcessConfig {
     private final boolean skipMerge;
@@ -9,8 +12,12 @@ public final class FileProcessConfig {
     private final int bufferSize;
     private final String lineSeparator;
     private final SkipMode skipMode;
-    private final boolean gzip;
+    private final CopyMode copyMode;
+    private final List<Precompression> precompressions;
     private final boolean allowReplacingInputFiles;
+    private final File manifestDir;
+    private final CompilationCache compilationCache;
+    private final CompilerDaemonClient compilerDaemon;
 
     public FileProcessConfig(
             String lineSeparator,
@@ -19,16 +26,24 @@ public final class FileProcessConfig {
             boolean skipMerge,
             boolean skipMinify,
             SkipMode skipMode,
-            boolean gzip,
-            boolean allowReplacingInputFiles) {
+            CopyMode copyMode,
+            List<Precompression> precompressions,
+            boolean allowReplacingInputFiles,
+            File manifestDir,
+            CompilationCache compilationCache,
+            CompilerDaemonClient compilerDaemon) {
         this.lineSeparator = lineSeparator;
         this.bufferSize = bufferSize;
         this.force = force;
         this.skipMerge = skipMerge;
         this.skipMinify = skipMinify;
         this.skipMode = skipMode;
-        this.gzip = gzip;
+        this.copyMode = copyMode;
+        this.precompressions = List.copyOf(precompressions);
         this.allowReplacingInputFiles = allowReplacingInputFiles;
+        this.manifestDir = manifestDir;
+        this.compilationCache = compilationCache;
+        this.compilerDaemon = compilerDaemon;
     }
 
     public boolean isAllowReplacingInputFiles() {
@@ -51,8 +66,28 @@ public final class FileProcessConfig {
         return skipMode;
     }
 
-    public boolean isGzip() {
-        return gzip;
+    /** @return How input files are written to the target directory when they are neither merged nor minified. */
+    public CopyMode getCopyMode() {
+        return copyMode;
+    }
+
+    /**
+     * @return The formats in which each output file is precompressed, empty when no precompressed files are created.
+     */
+    public List<Precompression> getPrecompressions() {
+        return precompressions;
+    }
+
+    /**
+     * @param format A compression format.
+     * @return The precompression with the given format, or <code>null</code> when the output files are not
+     *     precompressed in that format.
+     */
+    public Precompression getPrecompression(Precompression.Format format) {
+        return precompressions.stream()
+                .filter(precompression -> precompression.getFormat() == format)
+                .findFirst()
+                .orElse(null);
     }
 
     public int getBufferSize() {
@@ -62,4 +97,22 @@ public final class FileProcessConfig {
     public String getLineSeparator() {
         return lineSeparator;
     }
+
+    /**
+     * @return Directory for the manifest that records how the output files were created, such as the configuration and
+     *     the file digests used by the skip mode {@link SkipMode#HASH}.
+     */
+    public File getManifestDir() {
+        return manifestDir;
+    }
+
+    /** @return The cache for restoring minified files, or <code>null</code> when the cache is disabled. */
+    public CompilationCache getCompilationCache() {
+        return compilationCache;
+    }
+
+    /** @return The client for compiling in the compiler daemon, or <code>null</code> when the daemon is disabled. */
+    public CompilerDaemonClient getCompilerDaemon() {
+        return compilerDaemon;
+    }
 }
@@ -0,0 +1,303 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import org.codehaus.plexus.util.DirectoryScanner;
+
+/**
+ * Finds the files in a directory that match any of the given include patterns and none of the exclude patterns, with
+ * the same semantics as one {@link DirectoryScanner} per include pattern. Unlike running a separate scanner for each
+ * include pattern, the directory tree is walked only once, and all patterns are matched against each file. The
+ * subdirectories are walked concurrently.
+ *
+ * <p>Directories that cannot contain any included file are not walked, neither are directories that are excluded
+ * together with all their contents, such as by the default excludes {@code **&#47;.git/**}. Symbolic links are
+ * followed.
+ */
+final class FileScanner {
+    private final File baseDir;
+
+    private final List<PatternMatcher> includeMatchers;
+
+    private final PatternMatcher pruneMatcher;
+
+    /**
+     * @param baseDir Base directory of the includes and excludes, must exist.
+     * @param includes Include patterns, relative to the base directory.
+     * @param excludes Exclude patterns, relative to the base directory. The default excludes are added as well.
+     */
+    FileScanner(File baseDir, List<String> includes, List<String> excludes) {
+        this.baseDir = FileHelper.absoluteFileToCanonicalFile(baseDir.getAbsoluteFile());
+        final var excludesArray = excludes.toArray(new String[0]);
+        this.includeMatchers = includes.stream()
+                .map(include -> new PatternMatcher(new String[] {include}, excludesArray, true))
+                .collect(Collectors.toList());
+        // A directory whose contents are all excluded does not need to be walked
+        final var pruneMatcher = new PatternMatcher(new String[0], excludesArray, true);
+        final var prunePatterns = new ArrayList<String>();
+        for (final var exclude : pruneMatcher.getExcludes()) {
+            final var suffix = File.separator + "**";
+            if (exclude.endsWith(suffix)) {
+                prunePatterns.add(exclude.substring(0, exclude.length() - suffix.length()));
+            }
+        }
+        this.pruneMatcher = new PatternMatcher(prunePatterns.toArray(new String[0]), new String[0], false);
+    }
+
+    /**
+     * Walks the base directory and finds all included files.
+     *
+     * @return The canonical included files, ordered by the index of the first include pattern that matches the file,
+     *     then by their path.
+     */
+    List<File> scan() {
+        return order(walk());
+    }
+
+    /**
+     * Walks the base directory and finds all included files, together with their size and modification date.
+     *
+     * @return The included files, in no particular order.
+     */
+    List<ScannedFile> scanWithAttributes() {
+        final var files = new ArrayList<ScannedFile>();
+        walk().forEach(match -> files.add(match.file));
+        return files;
+    }
+
+    /**
+     * Finds the included files among the given files, without walking the base directory again.
+     *
+     * @param files Files found by another scanner for the same base directory, whose include patterns match at least
+     *     all files that the include patterns of this scanner match.
+     * @return The canonical included files, in the same order as {@link #scan()}.
+     */
+    List<File> select(Collection<ScannedFile> files) {
+        final var matches = new ArrayList<Match>();
+        for (final var file : files) {
+            final var includeIndex = findIncludeIndex(file.name);
+            if (includeIndex >= 0) {
+                matches.add(new Match(includeIndex, file));
+            }
+        }
+        return order(matches);
+    }
+
+    private List<Match> walk() {
+        final var root = new Directory(baseDir, "", false);
+        try {
+            if (ForkJoinTask.inForkJoinPool()) {
+                return root.call();
+            }
+            return ForkJoinHelper.invokeAll(ForkJoinPool.commonPool(), List.of(root))
+                    .get(0);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<File> order(List<Match> matches) {
+        final var seen = new HashSet<String>();
+        return matches.stream()
+                .sorted(Comparator.comparingInt((Match match) -> match.includeIndex)
+                        .thenComparing(match -> match.file.file))
+                .map(match -> match.file.file)
+                .filter(file -> seen.add(file.getAbsolutePath()))
+                .collect(Collectors.toList());
+    }
+
+    /** @return Index of the first include pattern that matches the given relative path, or -1 if none matches. */
+    private int findIncludeIndex(String name) {
+        for (var index = 0; index < includeMatchers.size(); index += 1) {
+            if (includeMatchers.get(index).isIncludedAndNotExcluded(name)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean shouldWalk(String name) {
+        if (pruneMatcher.isIncludedAndNotExcluded(name)) {
+            return false;
+        }
+        return includeMatchers.stream().anyMatch(matcher -> matcher.couldHoldIncludedFile(name));
+    }
+
+    /** Walks a directory, and its subdirectories concurrently. */
+    private final class Directory implements Callable<List<Match>> {
+        private final File dir;
+
+        private final String name;
+
+        private final boolean viaSymbolicLink;
+
+        /**
+         * @param dir The directory to walk.
+         * @param name The path of the directory relative to the base directory, empty for the base directory.
+         * @param viaSymbolicLink Whether the path of the directory contains a symbolic link, so that the files within
+         *     are not canonical yet.
+         */
+        Directory(File dir, String name, boolean viaSymbolicLink) {
+            this.dir = dir;
+            this.name = name;
+            this.viaSymbolicLink = viaSymbolicLink;
+        }
+
+        @Override
+        public List<Match> call() throws Exception {
+            final var matches = new ArrayList<Match>();
+            final var subdirectories = new ArrayList<Directory>();
+            final var children = dir.list();
+            if (children == null) {
+                return matches;
+            }
+            for (final var child : children) {
+                final var file = new File(dir, child);
+                final var childName = name.isEmpty() ? child : name + File.separator + child;
+                final var path = file.toPath();
+                final var attributes = readAttributes(path);
+                if (attributes == null) {
+                    continue;
+                }
+                final var symbolicLink = attributes.isSymbolicLink();
+                final var target = symbolicLink ? readTargetAttributes(path) : attributes;
+                if (target == null) {
+                    continue;
+                }
+                if (target.isDirectory()) {
+                    if (shouldWalk(childName)) {
+                        subdirectories.add(new Directory(file, childName, viaSymbolicLink || symbolicLink));
+                    }
+                } else {
+                    final var includeIndex = findIncludeIndex(childName);
+                    if (includeIndex >= 0) {
+                        final var canonical =
+                                viaSymbolicLink || symbolicLink ? FileHelper.absoluteFileToCanonicalFile(file) : file;
+                        matches.add(new Match(
+                                includeIndex,
+                                new ScannedFile(
+                                        childName,
+                                        canonical,
+                                        target.size(),
+                                        target.lastModifiedTime().toMillis())));
+                    }
+                }
+            }
+            for (final var subdirectoryMatches : ForkJoinHelper.invokeAll(subdirectories)) {
+                matches.addAll(subdirectoryMatches);
+            }
+            return matches;
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (final IOException e) {
+            // Deleted in the meantime
+            return null;
+        }
+    }
+
+    private static BasicFileAttributes readTargetAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (final IOException e) {
+            // Broken symbolic link
+            return null;
+        }
+    }
+
+    /** A file found by the scanner, with its size and modification date at the time it was found. */
+    static final class ScannedFile {
+        private final String name;
+
+        private final File file;
+
+        private final long size;
+
+        private final long lastModified;
+
+        /**
+         * @param name The path of the file relative to the base directory, with the platform specific separator.
+         * @param file The canonical file.
+         * @param size The size of the file in bytes.
+         * @param lastModified The modification date of the file, as returned by {@link File#lastModified()}.
+         */
+        ScannedFile(String name, File file, long size, long lastModified) {
+            this.name = name;
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /** An included file, with the index of the first include pattern that matches it. */
+    private static final class Match {
+        private final int includeIndex;
+
+        private final ScannedFile file;
+
+        Match(int includeIndex, ScannedFile file) {
+            this.includeIndex = includeIndex;
+            this.file = file;
+        }
+    }
+
+    /**
+     * Matches paths against include and exclude patterns, with the same semantics as the {@link DirectoryScanner}. It
+     * is only used for matching, not for scanning.
+     */
+    private static final class PatternMatcher extends DirectoryScanner {
+        PatternMatcher(String[] includes, String[] excludes, boolean defaultExcludes) {
+            setIncludes(includes);
+            setExcludes(excludes);
+            if (defaultExcludes) {
+                addDefaultExcludes();
+            }
+            setupMatchPatterns();
+        }
+
+        String[] getExcludes() {
+            return excludes;
+        }
+
+        boolean isIncludedAndNotExcluded(String name) {
+            return isIncluded(name) && !isExcluded(name);
+        }
+
+        boolean couldHoldIncludedFile(String name) {
+            return couldHoldIncluded(name);
+        }
+    }
+}
@@ -2,17 +2,31 @@ package com.github.blutorange.maven.plugin.closurecompiler.common;
 
 import com.google.javascript.jscomp.SourceMap.LocationMapping;
 import java.io.File;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.logging.Log;
 
-/** Makes the source file relative to the location of the source map. The paths are taken from the file system. */
+/**
+ * Makes the source file relative to the location of the source map. The paths are taken from the file system. The
+ * closure compiler maps the location of each mapping it records, so the mapped locations and the canonical paths are
+ * cached for the lifetime of this mapping, i.e. for a single compilation.
+ */
 final class FileSystemLocationMapping implements LocationMapping {
     private final File baseDirForSourceFiles;
-    private final File sourceMapDir;
+    private File sourceMapDir;
     private final Log log;
     private boolean transpilationDone;
+    private final Map<String, String> mappedLocations = new HashMap<>();
+    private final Map<File, Path> canonicalPaths = new HashMap<>();
 
+    /**
+     * @param log Log for the mapped locations, or <code>null</code> to not log them, such as in the compiler daemon.
+     * @param baseDirForSourceFiles Directory to which the paths of the source files are relative.
+     * @param sourceMapFile Source map to which the locations are made relative.
+     */
     public FileSystemLocationMapping(Log log, File baseDirForSourceFiles, File sourceMapFile) {
         this.log = log;
         this.baseDirForSourceFiles = baseDirForSourceFiles;
@@ -21,21 +35,34 @@ final class FileSystemLocationMapping implements LocationMapping {
 
     @Override
     public String map(String location) {
-        final String mapped;
         if (transpilationDone) {
             // This is the source file relative to the source map
-            mapped = location;
-        } else if (StringUtils.startsWith(StringUtils.trim(location), "[")) {
+            return location;
+        }
+        if (StringUtils.startsWith(StringUtils.trim(location), "[")) {
             // Internal files from closure compiler, such as "[synthetic:base]"
-            mapped = location;
-        } else {
-            final File file = new File(baseDirForSourceFiles, location);
-            mapped = FilenameUtils.separatorsToUnix(FileHelper.relativizePath(sourceMapDir, file));
+            return location;
+        }
+        final var cached = mappedLocations.get(location);
+        if (cached != null) {
+            return cached;
+        }
+        final File file = new File(baseDirForSourceFiles, location);
+        final var mapped =
+                FilenameUtils.separatorsToUnix(FileHelper.relativizePath(sourceMapDir, file, canonicalPaths));
+        mappedLocations.put(location, mapped);
+        if (log != null && log.isDebugEnabled()) {
+            log.debug("Source map: mapping location [" + location + "] to [" + mapped + "]");
         }
-        log.debug("Source map: mapping location [" + location + "] to [" + mapped + "]");
         return mapped;
     }
 
+    /** @param sourceMapFile Source map to which the locations are made relative, for when multiple maps are created. */
+    public void setSourceMapFile(File sourceMapFile) {
+        this.sourceMapDir = sourceMapFile.getParentFile();
+        mappedLocations.clear();
+    }
+
     public void setTranspilationDone(boolean transpilationDone) {
         this.transpilationDone = transpilationDone;
     }
@@ -0,0 +1,48 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builder for a stable fingerprint of a configuration. The same configuration always results in the same fingerprint,
+ * also across different JVMs. Maps are sorted by their keys, so the iteration order of a map does not matter.
+ */
+public final class Fingerprint {
+    private final StringBuilder data = new StringBuilder();
+
+    /**
+     * Adds a configuration value to the fingerprint.
+     *
+     * @param name Name of the configuration value.
+     * @param value Value to add. Must be a string, a primitive wrapper, an enum, a collection or map thereof, or any
+     *     other object with a stable {@link Object#toString()}.
+     * @return This builder for chaining.
+     */
+    public Fingerprint add(String name, Object value) {
+        data.append(name).append('=').append(normalize(value)).append('\n');
+        return this;
+    }
+
+    /** @return The fingerprint of all values added so far, as a SHA-256 hex string. */
+    public String build() {
+        return DigestHelper.digest(data.toString().getBytes(UTF_8));
+    }
+
+    private static String normalize(Object value) {
+        if (value instanceof Map) {
+            final var sorted = new TreeMap<String, String>();
+            ((Map<?, ?>) value).forEach((key, item) -> sorted.put(normalize(key), normalize(item)));
+            return sorted.toString();
+        }
+        if (value instanceof Collection) {
+            final var items = new ArrayList<String>();
+            ((Collection<?>) value).forEach(item -> items.add(normalize(item)));
+            return items.toString();
+        }
+        return String.valueOf(value);
+    }
+}
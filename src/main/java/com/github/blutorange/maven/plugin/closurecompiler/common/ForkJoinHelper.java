@@ -0,0 +1,89 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Helper methods for running tasks on a {@link ForkJoinPool}. Tasks running on the pool may in turn split their work
+ * into subtasks via {@link #invokeAll(List)}. Threads waiting for subtasks work on other pending tasks in the meantime,
+ * so the total number of threads stays bounded by the parallelism of the pool.
+ */
+public final class ForkJoinHelper {
+    private ForkJoinHelper() {}
+
+    /**
+     * Runs all callables on the given pool and waits until all of them have finished.
+     *
+     * @param pool Pool on which to run the callables.
+     * @param callables Callables to run.
+     * @return The result of each callable, in the same order as the given callables.
+     * @throws Exception The exception thrown by the first callable that failed, in the order of the given callables.
+     * @param <T> Type of the results.
+     */
+    public static <T> List<T> invokeAll(ForkJoinPool pool, List<? extends Callable<T>> callables) throws Exception {
+        final var task = new CallableAction<>(() -> invokeAll(callables));
+        pool.invoke(task);
+        return task.getResult();
+    }
+
+    /**
+     * Runs all callables and waits until all of them have finished. When the current thread is a worker of a
+     * {@link ForkJoinPool}, the callables are run concurrently on that pool. Otherwise, they are run sequentially on
+     * the current thread.
+     *
+     * @param callables Callables to run.
+     * @return The result of each callable, in the same order as the given callables.
+     * @throws Exception The exception thrown by the first callable that failed, in the order of the given callables.
+     * @param <T> Type of the results.
+     */
+    public static <T> List<T> invokeAll(List<? extends Callable<T>> callables) throws Exception {
+        final var tasks = new ArrayList<CallableAction<T>>();
+        for (final var callable : callables) {
+            tasks.add(new CallableAction<>(callable));
+        }
+        if (ForkJoinTask.inForkJoinPool() && tasks.size() > 1) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            tasks.forEach(ForkJoinTask::invoke);
+        }
+        final var results = new ArrayList<T>();
+        for (final var task : tasks) {
+            results.add(task.getResult());
+        }
+        return results;
+    }
+
+    /**
+     * Runs a callable and keeps its result or exception. Unlike {@link ForkJoinTask#adapt(Callable)}, this does not
+     * wrap checked exceptions, they are rethrown as they are by {@link #getResult()}.
+     */
+    private static final class CallableAction<T> extends RecursiveAction {
+        private final Callable<T> callable;
+        private T result;
+        private Exception error;
+
+        public CallableAction(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                result = callable.call();
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+
+        public T getResult() throws Exception {
+            if (error != null) {
+                throw error;
+            }
+            return result;
+        }
+    }
+}
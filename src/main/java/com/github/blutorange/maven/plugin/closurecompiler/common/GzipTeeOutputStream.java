@@ -0,0 +1,50 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import static java.io.OutputStream.nullOutputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.TeeOutputStream;
+
+/**
+ * Output stream that compresses all data with GZIP while it is written to the actual output stream, so that the data is
+ * compressed in the same pass. The compressed data is either written to a *.gz file, or only counted to report the
+ * compressed size.
+ */
+final class GzipTeeOutputStream extends TeeOutputStream {
+    private final CountingOutputStream gzipCounter;
+
+    private GzipTeeOutputStream(OutputStream out, CountingOutputStream gzipCounter, Precompression gzip, int bufferSize)
+            throws IOException {
+        super(out, gzip.compress(gzipCounter, bufferSize));
+        this.gzipCounter = gzipCounter;
+    }
+
+    /**
+     * @param out Stream to which the uncompressed data is written.
+     * @param gzipFile File to which the compressed data is written, or <code>null</code> to only count the compressed
+     *     size.
+     * @param gzip GZIP precompression with the compression level to use.
+     * @param bufferSize Buffer size for the compression.
+     * @return A new stream that writes to the given stream and compresses the data at the same time.
+     * @throws IOException When the *.gz file could not be opened.
+     */
+    static GzipTeeOutputStream of(OutputStream out, File gzipFile, Precompression gzip, int bufferSize)
+            throws IOException {
+        final var gzipOut = gzipFile != null ? new FileOutputStream(gzipFile) : nullOutputStream();
+        try {
+            return new GzipTeeOutputStream(out, new CountingOutputStream(gzipOut), gzip, bufferSize);
+        } catch (final IOException | RuntimeException e) {
+            gzipOut.close();
+            throw e;
+        }
+    }
+
+    /** @return The size of the compressed data, only complete once this stream was closed. */
+    long getGzipSize() {
+        return gzipCounter.getByteCount();
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Remote cache backed by an HTTP server. An entry with the key {@code <key>} is read via {@code GET <url>/<key>.zip}
+ * and written via {@code PUT <url>/<key>.zip}, which is supported by most build cache servers and by plain WebDAV
+ * servers. When the URL contains user information, it is sent via basic authentication.
+ */
+public final class HttpRemoteCache implements RemoteCache {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+
+    private final String baseUrl;
+
+    private final String authorization;
+
+    /** @param uri URL of the directory on the server where the entries are stored. */
+    public HttpRemoteCache(URI uri) {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        final var userInfo = uri.getRawUserInfo();
+        this.authorization = userInfo != null
+                ? "Basic " + Base64.getEncoder().encodeToString(decode(userInfo).getBytes(UTF_8))
+                : null;
+        final var url = userInfo != null ? uri.toString().replace(userInfo + "@", "") : uri.toString();
+        this.baseUrl = url.endsWith("/") ? url : url + "/";
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        final var response = send(newRequest(key).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        checkStatus(response, key);
+        return response.body();
+    }
+
+    @Override
+    public void put(String key, byte[] entry) throws IOException {
+        final var request = newRequest(key)
+                .header("Content-Type", "application/zip")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(entry))
+                .build();
+        checkStatus(send(request, HttpResponse.BodyHandlers.discarding()), key);
+    }
+
+    private HttpRequest.Builder newRequest(String key) {
+        final var builder =
+                HttpRequest.newBuilder(URI.create(baseUrl + key + ".zip")).timeout(TIMEOUT);
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+        try {
+            return client.send(request, bodyHandler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while accessing the remote cache", e);
+        }
+    }
+
+    private static void checkStatus(HttpResponse<?> response, String key) throws IOException {
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new IOException(
+                    "Remote cache responded with status " + response.statusCode() + " for entry [" + key + "]");
+        }
+    }
+
+    private static String decode(String userInfo) {
+        return URLDecoder.decode(userInfo.replace("+", "%2B"), UTF_8);
+    }
+
+    /** Provider for URLs with the {@code http:} and {@code https:} schemes. */
+    static final class Provider implements RemoteCacheProvider {
+        @Override
+        public boolean supports(URI uri) {
+            return "http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme());
+        }
+
+        @Override
+        public RemoteCache create(URI uri) {
+            return new HttpRemoteCache(uri);
+        }
+    }
+}
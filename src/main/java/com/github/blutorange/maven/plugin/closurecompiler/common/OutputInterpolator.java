@@ -1,5 +1,7 @@
 package com.github.blutorange.maven.plugin.closurecompiler.common;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -44,6 +46,20 @@ final class OutputInterpolator implements UnaryOperator<String> {
         return tokens.stream().map(token -> token.apply(source)).collect(Collectors.joining());
     }
 
+    /**
+     * Writes the output wrapper with the interpolated source to the given writer. Unlike {@link #apply(String)}, this
+     * does not create a copy of the source, and escapes the source while writing it for {@code %output|jsstring%}.
+     *
+     * @param source The source to interpolate.
+     * @param writer Writer to which the result is written.
+     * @throws IOException When the writer throws.
+     */
+    public void writeTo(String source, Writer writer) throws IOException {
+        for (final var token : tokens) {
+            token.writeTo(source, writer);
+        }
+    }
+
     public static OutputInterpolator forIdentity() {
         return new OutputInterpolator(TYPE_OUTPUT);
     }
@@ -92,6 +108,8 @@ final class OutputInterpolator implements UnaryOperator<String> {
 
     private interface Token extends UnaryOperator<String> {
         String toSource();
+
+        void writeTo(String source, Writer writer) throws IOException;
     }
 
     private static class TokenLiteral implements Token {
@@ -106,6 +124,11 @@ final class OutputInterpolator implements UnaryOperator<String> {
             return text;
         }
 
+        @Override
+        public void writeTo(String source, Writer writer) throws IOException {
+            writer.write(text);
+        }
+
         @Override
         public int hashCode() {
             return Objects.hashCode(text);
@@ -137,6 +160,11 @@ final class OutputInterpolator implements UnaryOperator<String> {
             return source;
         }
 
+        @Override
+        public void writeTo(String source, Writer writer) throws IOException {
+            writer.write(source);
+        }
+
         @Override
         public int hashCode() {
             return 0;
@@ -161,6 +189,11 @@ final class OutputInterpolator implements UnaryOperator<String> {
             return StringEscapeUtils.escapeEcmaScript(source);
         }
 
+        @Override
+        public void writeTo(String source, Writer writer) throws IOException {
+            StringEscapeUtils.ESCAPE_ECMASCRIPT.translate(source, writer);
+        }
+
         @Override
         public int hashCode() {
             return 0;
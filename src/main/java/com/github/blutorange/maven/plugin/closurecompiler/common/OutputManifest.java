@@ -0,0 +1,209 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Manifest with information about how the output files of a bundle were created. It records the fingerprint of the
+ * effective configuration that was used. When the skip mode {@code HASH} is used, it also records the digests of the
+ * contents of the input and output files. Unlike the modification date, the content does not change when the files are
+ * restored from a version control system or a cache.
+ *
+ * <p>Each set of output files has its own manifest file within the manifest directory, so bundles that are processed
+ * concurrently never write to the same manifest file.
+ *
+ * <p>All files are identified by their path relative to the base directory of the project, so that the manifest stays
+ * valid when the project, including its build directory, is moved to another directory, such as when it is restored
+ * from the cache of a CI server into another workspace.
+ *
+ * <p>For each precompressed file, the manifest also records the digest of the content it was created from. When an
+ * output file is created again with the same content, its precompressed files can be kept, see
+ * {@link #isPrecompressedFileUpToDate(File, Precompression, String)}.
+ */
+public final class OutputManifest {
+    private final File manifestDir;
+
+    private final File basedir;
+
+    /**
+     * @param manifestDir Directory where the manifest files are stored.
+     * @param basedir Base directory of the project, relative to which the files are recorded.
+     */
+    public OutputManifest(File manifestDir, File basedir) {
+        this.manifestDir = manifestDir;
+        this.basedir = basedir;
+    }
+
+    /**
+     * Checks whether the output files were created with a different configuration. When no manifest exists for the
+     * output files, such as when they were created by an older version of this plugin, the configuration is assumed to
+     * be unchanged.
+     *
+     * @param outputFiles Output files of a bundle.
+     * @param configuration Fingerprint of the current configuration.
+     * @return <code>true</code> if a manifest exists for the output files and its configuration fingerprint differs
+     *     from the given fingerprint, <code>false</code> otherwise.
+     * @throws IOException When the manifest could not be read.
+     */
+    public boolean hasConfigurationChanged(Collection<File> outputFiles, String configuration) throws IOException {
+        final var stored = read(outputFiles);
+        return stored != null && !Objects.equals(stored.configuration, configuration);
+    }
+
+    /**
+     * Checks whether the given source and output files have the same content as when the manifest was written.
+     *
+     * @param sourceFiles Input files of a bundle.
+     * @param outputFiles Output files of the bundle.
+     * @return Whether a manifest with digests exists for the output files and all digests match.
+     * @throws IOException When the files could not be read.
+     */
+    public boolean isContentUpToDate(Collection<File> sourceFiles, Collection<File> outputFiles) throws IOException {
+        if (!outputFiles.stream().allMatch(File::isFile)) {
+            return false;
+        }
+        final var stored = read(outputFiles);
+        return stored != null
+                && stored.inputs != null
+                && stored.outputs != null
+                && Objects.equals(stored.inputs, digest(sourceFiles))
+                && Objects.equals(stored.outputs, digest(outputFiles));
+    }
+
+    /**
+     * Writes the manifest for the given files. Should be called once the output files were created.
+     *
+     * @param sourceFiles Input files of a bundle.
+     * @param outputFiles Output files of the bundle.
+     * @param configuration Fingerprint of the configuration that was used to create the output files.
+     * @param withDigests Whether to include the digests of the contents of the input and output files.
+     * @throws IOException When the files could not be read or the manifest could not be written.
+     */
+    public void write(
+            Collection<File> sourceFiles, Collection<File> outputFiles, String configuration, boolean withDigests)
+            throws IOException {
+        final var entry = new Entry();
+        entry.configuration = configuration;
+        if (withDigests) {
+            entry.inputs = digest(sourceFiles);
+            entry.outputs = digest(outputFiles);
+        }
+        writeJson(getManifestFile(outputFiles), entry);
+    }
+
+    /**
+     * Checks whether the given precompressed file was created from the given content with the same format and level.
+     *
+     * @param precompressedFile A precompressed file.
+     * @param precompression Format and level of the precompressed file.
+     * @param contentDigest Digest of the content of the output file from which the precompressed file is created.
+     * @return Whether the precompressed file exists and was created from the same content with the same format and
+     *     level, and was not modified since then.
+     * @throws IOException When the manifest could not be read.
+     */
+    public boolean isPrecompressedFileUpToDate(
+            File precompressedFile, Precompression precompression, String contentDigest) throws IOException {
+        if (!precompressedFile.isFile()) {
+            return false;
+        }
+        final var stored = readJson(getPrecompressedManifestFile(precompressedFile), PrecompressedEntry.class);
+        return stored != null
+                && Objects.equals(stored.precompression, precompression.toString())
+                && Objects.equals(stored.content, contentDigest)
+                && stored.size == precompressedFile.length();
+    }
+
+    /**
+     * Records from which content the given precompressed file was created. Should be called once the precompressed file
+     * was written.
+     *
+     * @param precompressedFile A precompressed file.
+     * @param precompression Format and level of the precompressed file.
+     * @param contentDigest Digest of the content of the output file from which the precompressed file was created.
+     * @throws IOException When the manifest could not be written.
+     */
+    public void writePrecompressedFile(File precompressedFile, Precompression precompression, String contentDigest)
+            throws IOException {
+        final var entry = new PrecompressedEntry();
+        entry.precompression = precompression.toString();
+        entry.content = contentDigest;
+        entry.size = precompressedFile.length();
+        writeJson(getPrecompressedManifestFile(precompressedFile), entry);
+    }
+
+    private Entry read(Collection<File> outputFiles) throws IOException {
+        return readJson(getManifestFile(outputFiles), Entry.class);
+    }
+
+    private static <T> T readJson(File manifestFile, Class<T> type) throws IOException {
+        if (!manifestFile.isFile()) {
+            return null;
+        }
+        try {
+            return new Gson().fromJson(Files.readString(manifestFile.toPath(), UTF_8), type);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    private void writeJson(File manifestFile, Object entry) throws IOException {
+        Files.createDirectories(manifestDir.toPath());
+        // Write to a temporary file first, so that no other process ever reads a partially written manifest
+        final var tempFile = Files.createTempFile(manifestDir.toPath(), manifestFile.getName(), ".tmp");
+        try {
+            Files.writeString(tempFile, new Gson().toJson(entry), UTF_8);
+            Files.move(tempFile, manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private File getManifestFile(Collection<File> outputFiles) {
+        final var key = new StringBuilder();
+        for (final var outputFile : outputFiles) {
+            key.append(relativize(outputFile)).append('\n');
+        }
+        return new File(manifestDir, DigestHelper.digest(key.toString().getBytes(UTF_8)) + ".json");
+    }
+
+    private File getPrecompressedManifestFile(File precompressedFile) {
+        final var key = relativize(precompressedFile);
+        return new File(manifestDir, DigestHelper.digest(key.getBytes(UTF_8)) + ".precompressed.json");
+    }
+
+    private Map<String, String> digest(Collection<File> files) throws IOException {
+        final var digests = new TreeMap<String, String>();
+        for (final var file : files) {
+            digests.put(relativize(file), DigestHelper.digest(file));
+        }
+        return digests;
+    }
+
+    private String relativize(File file) {
+        return FileHelper.relativizePath(basedir, file);
+    }
+
+    /** The content of a manifest file, serialized as JSON. */
+    private static final class Entry {
+        private String configuration;
+        private Map<String, String> inputs;
+        private Map<String, String> outputs;
+    }
+
+    /** The content of a manifest file for a precompressed file, serialized as JSON. */
+    private static final class PrecompressedEntry {
+        private String precompression;
+        private String content;
+        private long size;
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.googlecode.pngtastic.core.processing.zopfli.Options;
+import com.googlecode.pngtastic.core.processing.zopfli.ZopfliOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A format in which the output files are precompressed, together with the compression level. Each precompressed file is
+ * written next to the output file, with the file extension of the format appended, so that web servers can serve it
+ * directly to clients that accept the encoding, e.g. with {@code gzip_static} and {@code brotli_static} of nginx.
+ */
+public final class Precompression {
+    /** Level of the format {@link Format#GZIP} that uses Zopfli instead of the deflater of the JDK. */
+    public static final int ZOPFLI_LEVEL = 10;
+
+    /** Number of iterations of Zopfli, the same as the default of the Zopfli command line tool. */
+    private static final int ZOPFLI_ITERATIONS = 15;
+
+    private static final String MAX_LEVEL = "max";
+
+    /** The supported compression formats. */
+    public enum Format {
+        /**
+         * GZIP, with levels from 1 (fastest) to 9 (smallest). The maximum level {@value Precompression#ZOPFLI_LEVEL}
+         * uses Zopfli, which is much slower, but creates files that are a few percent smaller and can be read by any
+         * GZIP decoder.
+         */
+        GZIP(".gz", 1, ZOPFLI_LEVEL, 6) {
+            @Override
+            OutputStream compress(OutputStream out, int level, int bufferSize) throws IOException {
+                if (level == ZOPFLI_LEVEL) {
+                    // Zopfli writes single bytes to the underlying stream
+                    final var options =
+                            new Options(Options.OutputFormat.GZIP, Options.BlockSplitting.FIRST, ZOPFLI_ITERATIONS);
+                    return new ZopfliOutputStream(new BufferedOutputStream(out, bufferSize), options);
+                }
+                return new GZIPOutputStream(out, bufferSize) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            }
+        },
+
+        /** Brotli, with levels from 0 (fastest) to 11 (smallest). */
+        BROTLI(".br", 0, 11, 11) {
+            @Override
+            OutputStream compress(OutputStream out, int level, int bufferSize) throws IOException {
+                try {
+                    Brotli4jLoader.ensureAvailability();
+                } catch (final UnsatisfiedLinkError | RuntimeException e) {
+                    throw new IOException("Brotli compression is not available on this platform.", e);
+                }
+                return new BrotliOutputStream(out, new Encoder.Parameters().setQuality(level), bufferSize);
+            }
+        },
+
+        /** Zstandard, with levels from 1 (fastest) to 22 (smallest). */
+        ZSTD(".zst", 1, 22, 3) {
+            @Override
+            OutputStream compress(OutputStream out, int level, int bufferSize) throws IOException {
+                try {
+                    return new ZstdOutputStream(out, level);
+                } catch (final UnsatisfiedLinkError e) {
+                    throw new IOException("Zstandard compression is not available on this platform.", e);
+                }
+            }
+        };
+
+        private final String extension;
+
+        private final int minLevel;
+
+        private final int maxLevel;
+
+        private final int defaultLevel;
+
+        Format(String extension, int minLevel, int maxLevel, int defaultLevel) {
+            this.extension = extension;
+            this.minLevel = minLevel;
+            this.maxLevel = maxLevel;
+            this.defaultLevel = defaultLevel;
+        }
+
+        /** @return The extension appended to the output file, including the leading dot. */
+        public String getExtension() {
+            return extension;
+        }
+
+        /** @return The name of this format as used in the configuration. */
+        public String getId() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        abstract OutputStream compress(OutputStream out, int level, int bufferSize) throws IOException;
+    }
+
+    private final Format format;
+
+    private final int level;
+
+    /**
+     * @param format The compression format.
+     * @param level The compression level, must be supported by the format.
+     */
+    public Precompression(Format format, int level) {
+        if (level < format.minLevel || level > format.maxLevel) {
+            throw new IllegalArgumentException("The level of " + format.getId() + " must be between " + format.minLevel
+                    + " and " + format.maxLevel + ", but was " + level + ".");
+        }
+        this.format = format;
+        this.level = level;
+    }
+
+    /**
+     * @param format The compression format.
+     * @return The given format with its default level.
+     */
+    public static Precompression of(Format format) {
+        return new Precompression(format, format.defaultLevel);
+    }
+
+    /**
+     * Parses a precompression from the configuration. It consists of the name of the format, optionally followed by a
+     * colon and the level, e.g. {@code brotli} or {@code zstd:19}. The level {@code max} selects the maximum level of
+     * the format, which is Zopfli for GZIP.
+     *
+     * @param value The value to parse.
+     * @return The parsed precompression.
+     * @throws IllegalArgumentException When the format is not supported or the level is invalid.
+     */
+    public static Precompression parse(String value) {
+        final var parts = value.trim().split(":", 2);
+        final Format format;
+        try {
+            format = Format.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unsupported format [" + parts[0].trim() + "], must be one of gzip, brotli or zstd.");
+        }
+        if (parts.length == 1) {
+            return of(format);
+        }
+        if (MAX_LEVEL.equalsIgnoreCase(parts[1].trim())) {
+            return new Precompression(format, format.maxLevel);
+        }
+        try {
+            return new Precompression(format, Integer.parseInt(parts[1].trim()));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid level [" + parts[1].trim() + "] for " + format.getId() + ".");
+        }
+    }
+
+    /** @return The compression format. */
+    public Format getFormat() {
+        return format;
+    }
+
+    /** @return The compression level. */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Whether the file is compressed with Zopfli, which takes much longer than the other formats and levels.
+     */
+    public boolean isZopfli() {
+        return format == Format.GZIP && level == ZOPFLI_LEVEL;
+    }
+
+    /**
+     * @param outputFile An output file.
+     * @return The precompressed file next to the given output file.
+     */
+    public File getFile(File outputFile) {
+        return new File(outputFile.getAbsolutePath() + format.getExtension());
+    }
+
+    /**
+     * @param out Stream to which the compressed data is written.
+     * @param bufferSize Buffer size for the compression.
+     * @return A stream that compresses all data written to it. Closing it closes the given stream as well.
+     * @throws IOException When the compression could not be started, such as when the native library of the format is
+     *     not available. The given stream is closed in that case.
+     */
+    OutputStream compress(OutputStream out, int bufferSize) throws IOException {
+        try {
+            return format.compress(out, level, bufferSize);
+        } catch (final IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format.getId() + ":" + level;
+    }
+}
@@ -13,14 +13,11 @@
  */
 package com.github.blutorange.maven.plugin.closurecompiler.common;
 
-import static java.io.OutputStream.nullOutputStream;
-
+import com.github.blutorange.maven.plugin.closurecompiler.plugin.CopyMode;
 import com.github.blutorange.maven.plugin.closurecompiler.plugin.SkipMode;
 import com.github.blutorange.maven.plugin.closurecompiler.shared.MojoMetadata;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,6 +27,16 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.SequenceInputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -37,11 +44,11 @@ import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
 /** Abstract class for merging and compressing a files list. */
@@ -49,25 +56,13 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
     private static final String DEFAULT_MERGED_FILENAME = "script.js";
 
     /**
-     * Logs an addition of a new source file.
-     *
-     * @param files A list of files required for compilation, such as files imported by other files.
-     * @param sourceFile The source file to process, i.e. the main entry point.
-     * @param mojoMeta Mojo data with e.g. the logger.
-     * @throws IOException When an input file could not be read or an output file could not be written.
+     * Mojo metadata for this task. Its logger buffers all messages until the task is done, so that the messages of
+     * tasks running concurrently do not interleave.
      */
-    private static void addNewSourceFile(Collection<File> files, File sourceFile, MojoMetadata mojoMeta)
-            throws IOException {
-        if (sourceFile.exists()) {
-            mojoMeta.getLog().debug("Adding source file [" + sourceFile.getPath() + "].");
-            files.add(sourceFile.getCanonicalFile());
-        } else {
-            throw new FileNotFoundException("The source file [" + sourceFile.getPath() + "] does not exist.");
-        }
-    }
-
     protected final MojoMetadata mojoMeta;
 
+    private final BufferedLog log;
+
     protected final ClosureConfig closureConfig;
 
     protected final List<File> files = new ArrayList<>();
@@ -78,6 +73,12 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
 
     protected final FileProcessConfig processConfig;
 
+    private final DirectoryIndex directoryIndex;
+
+    private final OutputManifest outputManifest;
+
+    private final String configurationFingerprint;
+
     protected final File sourceDir;
 
     protected final File targetDir;
@@ -88,6 +89,7 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
      * @param mojoMeta Base mojo data.
      * @param processConfig Configuration for this file task.
      * @param fileSpecifier Details about the input / output files.
+     * @param directoryIndex Index of the source directory, shared by all tasks of an execution.
      * @param closureConfig Google closure configuration
      * @throws IOException When an input file could not be read or an output file could not be written.
      */
@@ -95,12 +97,16 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
             MojoMetadata mojoMeta,
             FileProcessConfig processConfig,
             FileSpecifier fileSpecifier,
+            DirectoryIndex directoryIndex,
             ClosureConfig closureConfig)
             throws IOException {
-        this.mojoMeta = mojoMeta;
+        this.log = new BufferedLog(mojoMeta.getLog());
+        this.mojoMeta = new TaskMojoMetadata(mojoMeta, log);
         this.processConfig = processConfig;
+        this.directoryIndex = directoryIndex;
 
         final var projectBasedir = mojoMeta.getProject().getBasedir();
+        this.outputManifest = new OutputManifest(processConfig.getManifestDir(), projectBasedir);
         this.sourceDir = FileHelper.getFile(
                         FileHelper.getAbsoluteFile(projectBasedir, fileSpecifier.getBaseSourceDir()),
                         fileSpecifier.getSourceDir())
@@ -113,15 +119,63 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
                 .getCanonicalFile();
         this.outputFilenameInterpolator = new FilenameInterpolator(fileSpecifier.getOutputFilename());
 
-        for (final var include :
-                FileHelper.getIncludedFiles(this.sourceDir, fileSpecifier.getIncludes(), fileSpecifier.getExcludes())) {
-            if (!files.contains(include)) {
-                addNewSourceFile(files, include, mojoMeta);
+        // The included files are distinct and canonical already
+        for (final var include : directoryIndex.getIncludedFiles(
+                this.sourceDir, fileSpecifier.getIncludes(), fileSpecifier.getExcludes())) {
+            if (this.mojoMeta.getLog().isDebugEnabled()) {
+                this.mojoMeta.getLog().debug("Adding source file [" + include.getPath() + "].");
             }
+            files.add(include);
         }
 
         this.includesEmpty = fileSpecifier.getIncludes().isEmpty();
         this.closureConfig = closureConfig;
+        this.configurationFingerprint = createConfigurationFingerprint();
+
+        log.flush();
+    }
+
+    /** @return The input files of this task, in the order in which they are processed. */
+    public List<File> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /** @return The output file when all input files of this task are merged into a single file. */
+    public File getMergedFile() {
+        return outputFilenameInterpolator.interpolate(
+                new File(targetDir, DEFAULT_MERGED_FILENAME), targetDir, targetDir);
+    }
+
+    /** Writes the buffered log messages of this task, for when the task is run by another task. */
+    final void flushLog() {
+        log.flush();
+    }
+
+    /** @return The index of the source directory, shared by all tasks of an execution. */
+    protected final DirectoryIndex getDirectoryIndex() {
+        return directoryIndex;
+    }
+
+    /** @return The directory with the input files of this task. */
+    public File getSourceDir() {
+        return sourceDir;
+    }
+
+    /**
+     * Creates a fingerprint of all options that affect the content of the output files.
+     *
+     * @return The fingerprint of the effective configuration of this task.
+     * @throws IOException When an extern file could not be read.
+     */
+    private String createConfigurationFingerprint() throws IOException {
+        return new Fingerprint()
+                .add("encoding", mojoMeta.getEncoding())
+                .add("lineSeparator", processConfig.getLineSeparator())
+                .add("skipMerge", processConfig.isSkipMerge())
+                .add("skipMinify", processConfig.isSkipMinify())
+                .add("precompress", processConfig.getPrecompressions())
+                .add("closure", processConfig.isSkipMinify() ? null : closureConfig.getFingerprint())
+                .build();
     }
 
     private void assertTarget(File source, File target) throws MojoFailureException {
@@ -147,7 +201,7 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
      */
     @Override
     public List<ProcessingResult> call() throws IOException, MojoFailureException {
-        synchronized (mojoMeta.getLog()) {
+        try {
             mojoMeta.getLog().info("Starting JavaScript task:");
             if (!files.isEmpty()) {
                 try {
@@ -167,6 +221,9 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
                 mojoMeta.getLog().warn("No valid JavaScript source files found to process.");
             }
             return List.of();
+        } finally {
+            // Write all messages of this task at once
+            log.flush();
         }
     }
 
@@ -194,22 +251,20 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
     private List<ProcessingResult> processFiles() throws IOException, MojoFailureException {
         final var merge = !processConfig.isSkipMerge();
         final var minify = !processConfig.isSkipMinify();
-        final var gzip = processConfig.isGzip();
         final var sourceFiles = files;
 
         final List<ProcessingResult> results;
         if (merge) {
-            final var outputFile = outputFilenameInterpolator.interpolate(
-                    new File(targetDir, DEFAULT_MERGED_FILENAME), targetDir, targetDir);
-            results = List.of(processFiles(sourceFiles, outputFile, minify, gzip));
+            final var outputFile = getMergedFile();
+            results = List.of(processFiles(sourceFiles, outputFile, minify));
         } else {
-            final var list = new ArrayList<ProcessingResult>();
+            // Each file is processed independently, so we can process them concurrently when running on a pool
+            final var fileTasks = new ArrayList<Callable<ProcessingResult>>();
             for (final var file : sourceFiles) {
                 final var outputFile = outputFilenameInterpolator.interpolate(file, sourceDir, targetDir);
-                final var result = processFiles(List.of(file), outputFile, minify, gzip);
-                list.add(result);
+                fileTasks.add(() -> processFiles(List.of(file), outputFile, minify));
             }
-            results = list;
+            results = invokeAll(fileTasks);
         }
 
         logResults(results);
@@ -217,16 +272,78 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
         return results;
     }
 
-    private void gzipCompress(File input) throws IOException {
-        final var output = new File(input.getAbsolutePath() + ".gz");
-        try (final var gos = new GZIPOutputStream(new FileOutputStream(output))) {
-            try (final var fis = new FileInputStream(input)) {
-                fis.transferTo(gos);
+    private static List<ProcessingResult> invokeAll(List<Callable<ProcessingResult>> fileTasks)
+            throws IOException, MojoFailureException {
+        try {
+            return ForkJoinHelper.invokeAll(fileTasks);
+        } catch (IOException | MojoFailureException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Compresses the given output file in each configured precompression format and writes the results next to it. The
+     * formats are compressed concurrently when running on a pool. A precompressed file is kept when it was created from
+     * the same content with the same format and level before, such as when the output file was created again with the
+     * same content, since some formats are slow to compress.
+     *
+     * @param outputFile File to compress.
+     * @param gzipCreated Whether the *.gz file was already created while the output file was written, see
+     *     {@link GzipTeeOutputStream}.
+     * @throws IOException When the file could not be read or a precompressed file could not be written.
+     */
+    protected final void precompress(File outputFile, boolean gzipCreated) throws IOException {
+        final var precompressions = new ArrayList<Precompression>();
+        for (final var precompression : processConfig.getPrecompressions()) {
+            if (!gzipCreated || precompression.getFormat() != Precompression.Format.GZIP) {
+                precompressions.add(precompression);
             }
         }
+        if (precompressions.isEmpty()) {
+            return;
+        }
+        final var contentDigest = DigestHelper.digest(outputFile);
+        final var compressTasks = new ArrayList<Callable<File>>();
+        for (final var precompression : precompressions) {
+            compressTasks.add(() -> {
+                final var compressedFile = precompression.getFile(outputFile);
+                if (outputManifest.isPrecompressedFileUpToDate(compressedFile, precompression, contentDigest)) {
+                    // Keep the file, but mark it as up-to-date for the skip mode NEWER
+                    compressedFile.setLastModified(System.currentTimeMillis());
+                    mojoMeta.getLog().debug("Keeping the unchanged precompressed file [" + compressedFile + "].");
+                    return compressedFile;
+                }
+                try (final var output =
+                        precompression.compress(new FileOutputStream(compressedFile), processConfig.getBufferSize())) {
+                    Files.copy(outputFile.toPath(), output);
+                }
+                outputManifest.writePrecompressedFile(compressedFile, precompression, contentDigest);
+                return compressedFile;
+            });
+        }
+        try {
+            ForkJoinHelper.invokeAll(compressTasks);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    private ProcessingResult processFiles(List<File> inputFiles, File outputFile, boolean minify, boolean gzip)
+    /**
+     * @param outputFile An output file.
+     * @return The given output file, followed by its precompressed files in each configured format.
+     */
+    protected final List<File> withPrecompressedFiles(File outputFile) {
+        final var files = new ArrayList<File>();
+        files.add(outputFile);
+        processConfig.getPrecompressions().forEach(precompression -> files.add(precompression.getFile(outputFile)));
+        return files;
+    }
+
+    private ProcessingResult processFiles(List<File> inputFiles, File outputFile, boolean minify)
             throws MojoFailureException, IOException {
         if (minify || inputFiles.size() == 1) {
             for (final var inputFile : inputFiles) {
@@ -242,9 +359,6 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
         } else {
             result = merge(inputFiles, outputFile);
         }
-        if (gzip && !result.isWasSkipped()) {
-            gzipCompress(outputFile);
-        }
 
         return result;
     }
@@ -253,43 +367,33 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
         files.forEach(file -> mojoMeta.getBuildContext().removeMessages(file));
     }
 
+    /** @return Whether the compression gains are logged, see {@link #logCompressionGains(List, File, long)}. */
+    protected final boolean isLogCompressionGains() {
+        return mojoMeta.getLog().isInfoEnabled() && !mojoMeta.getBuildContext().isIncremental();
+    }
+
     /**
      * Logs compression gains.
      *
      * @param srcFiles list of input files to compress
-     * @param minified output file resulting from the minify step
+     * @param minifiedFile output file resulting from the minify step
+     * @param gzippedSize size of the output file when compressed with GZIP
      */
-    protected final void logCompressionGains(List<File> srcFiles, String minified) {
-        if (!mojoMeta.getLog().isInfoEnabled() || mojoMeta.getBuildContext().isIncremental()) {
+    protected final void logCompressionGains(List<File> srcFiles, File minifiedFile, long gzippedSize) {
+        if (!isLogCompressionGains()) {
             return;
         }
-        try {
-            final var minifiedData = minified.getBytes(mojoMeta.getEncoding());
-            final var compressedSize = minifiedData.length;
-
-            long compressedSizeGzip;
-            try (final var input = new ByteArrayInputStream(minifiedData);
-                    final var countingOutputStream = new CountingOutputStream(nullOutputStream());
-                    final var gzipOutputStream = new GZIPOutputStream(countingOutputStream)) {
-                IOUtils.copy(input, gzipOutputStream, processConfig.getBufferSize());
-                gzipOutputStream.finish();
-                compressedSizeGzip = countingOutputStream.getByteCount();
-            }
-
-            var uncompressedSize = 0L;
-            if (srcFiles != null) {
-                for (File srcFile : srcFiles) {
-                    uncompressedSize += srcFile.length();
-                }
+        var uncompressedSize = 0L;
+        if (srcFiles != null) {
+            for (File srcFile : srcFiles) {
+                uncompressedSize += srcFile.length();
             }
-
-            mojoMeta.getLog().info("Uncompressed size: " + uncompressedSize + " bytes.");
-            mojoMeta.getLog()
-                    .info("Compressed size: " + compressedSize + " bytes minified (" + compressedSizeGzip
-                            + " bytes gzipped).");
-        } catch (IOException e) {
-            mojoMeta.getLog().debug("Failed to calculate the gzipped file size.", e);
         }
+
+        mojoMeta.getLog().info("Uncompressed size: " + uncompressedSize + " bytes.");
+        mojoMeta.getLog()
+                .info("Compressed size: " + minifiedFile.length() + " bytes minified (" + gzippedSize
+                        + " bytes gzipped).");
     }
 
     /**
@@ -306,7 +410,8 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
             firstThatExists = firstThatExists.getParentFile();
         } while (firstThatExists != null && !firstThatExists.exists());
         try {
-            if (!directory.mkdirs()) {
+            // Another task running concurrently may have created the directory in the meantime
+            if (!directory.mkdirs() && !directory.isDirectory()) {
                 throw new RuntimeException("Unable to create target directory: " + directory.getPath());
             }
         } finally {
@@ -317,7 +422,8 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
     }
 
     /**
-     * Copies sourceFile to targetFile, making sure to inform the build context of the change.
+     * Copies sourceFile to targetFile, making sure to inform the build context of the change. With the copy mode
+     * {@link CopyMode#LINK}, a hard link to the source file is created instead, when possible.
      *
      * @param sourceFile The source file to copy.
      * @param targetFile The target file to which to copy the source file.
@@ -326,13 +432,69 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
      * @throws IOException When an input file could not be read or an output file could not be written.
      */
     protected final ProcessingResult copy(File sourceFile, File targetFile) throws IOException {
-        if (!haveFilesChanged(Collections.singleton(sourceFile), Collections.singleton(targetFile))) {
+        final var outputFiles = withPrecompressedFiles(targetFile);
+        if (!haveFilesChanged(Collections.singleton(sourceFile), outputFiles)) {
             return ProcessingResult.skipped(targetFile).build();
         }
 
         mkDir(targetDir);
         mkDir(targetFile.getParentFile());
 
+        if (isLinkFiles() && link(sourceFile, targetFile)) {
+            mojoMeta.getBuildContext().refresh(targetFile);
+        } else if (isByteCopySupported()) {
+            copyBytes(sourceFile, targetFile);
+        } else {
+            copyChars(sourceFile, targetFile);
+        }
+
+        mojoMeta.getLog().info("Creating the copied file [" + targetFile.getName() + "].");
+        mojoMeta.getLog().debug("Full path is [" + targetFile.getPath() + "].");
+
+        precompress(targetFile, false);
+        recordProcessedFiles(Collections.singleton(sourceFile), outputFiles);
+
+        return ProcessingResult.success(targetFile).build();
+    }
+
+    /**
+     * Creates a hard link to the source file at the target file, replacing the target file if it exists.
+     *
+     * @return Whether the link was created. <code>false</code> when the file system does not support hard links, or
+     *     when the source and the target are on different file systems.
+     */
+    private boolean link(File sourceFile, File targetFile) throws IOException {
+        final var source = sourceFile.toPath();
+        final var target = targetFile.toPath();
+        if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            if (Files.isSameFile(source, target)) {
+                return true;
+            }
+            Files.delete(target);
+        }
+        try {
+            Files.createLink(target, source);
+            return true;
+        } catch (final UnsupportedOperationException | FileSystemException e) {
+            mojoMeta.getLog()
+                    .debug("Could not link [" + targetFile.getPath() + "] to [" + sourceFile.getPath()
+                            + "], copying it instead: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void copyBytes(File sourceFile, File targetFile) throws IOException {
+        unlink(targetFile, Collections.singleton(sourceFile));
+        final var output = mojoMeta.getBuildContext().newFileOutputStream(targetFile);
+        try {
+            transferFile(sourceFile, toChannel(output));
+        } finally {
+            output.close();
+        }
+    }
+
+    private void copyChars(File sourceFile, File targetFile) throws IOException {
+        unlink(targetFile, Collections.singleton(sourceFile));
         InputStream input;
         OutputStream output;
         Reader inputReader = null;
@@ -365,11 +527,6 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
                 if (outputWriter != null) outputWriter.close();
             }
         }
-
-        mojoMeta.getLog().info("Creating the copied file [" + targetFile.getName() + "].");
-        mojoMeta.getLog().debug("Full path is [" + targetFile.getPath() + "].");
-
-        return ProcessingResult.success(targetFile).build();
     }
 
     /**
@@ -380,7 +537,8 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
      * @throws IOException when the merge step fails
      */
     protected final ProcessingResult merge(List<File> sourceFiles, File mergedFile) throws IOException {
-        if (!haveFilesChanged(sourceFiles, Collections.singleton(mergedFile))) {
+        final var outputFiles = withPrecompressedFiles(mergedFile);
+        if (!haveFilesChanged(sourceFiles, outputFiles)) {
             return ProcessingResult.skipped(mergedFile).build();
         }
 
@@ -390,6 +548,42 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
         mojoMeta.getLog().info("Creating the merged file [" + mergedFile.getName() + "].");
         mojoMeta.getLog().debug("Full path is [" + mergedFile.getPath() + "].");
 
+        if (isByteCopySupported()) {
+            mergeBytes(sourceFiles, mergedFile);
+        } else {
+            mergeChars(sourceFiles, mergedFile);
+        }
+
+        precompress(mergedFile, false);
+        recordProcessedFiles(sourceFiles, outputFiles);
+
+        return ProcessingResult.success(mergedFile).build();
+    }
+
+    private void mergeBytes(List<File> sourceFiles, File mergedFile) throws IOException {
+        unlink(mergedFile, sourceFiles);
+        final var lineSeparator = processConfig.getLineSeparator().getBytes(mojoMeta.getEncoding());
+        final var output = mojoMeta.getBuildContext().newFileOutputStream(mergedFile);
+        try {
+            final var channel = toChannel(output);
+            for (var i = 0; i < sourceFiles.size(); i += 1) {
+                final var sourceFile = sourceFiles.get(i);
+                mojoMeta.getLog().info("Processing source file [" + sourceFile.getName() + "].");
+                mojoMeta.getLog().debug("Full path is [" + sourceFile.getPath() + "].");
+                if (i > 0) {
+                    writeFully(channel, lineSeparator);
+                }
+                transferFile(sourceFile, channel);
+            }
+            // Make sure we end with a new line
+            writeFully(channel, lineSeparator);
+        } finally {
+            output.close();
+        }
+    }
+
+    private void mergeChars(List<File> sourceFiles, File mergedFile) throws IOException {
+        unlink(mergedFile, sourceFiles);
         InputStream input;
         OutputStream output;
         InputStreamReader inputStreamReader = null;
@@ -429,8 +623,84 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
                 if (outputWriter != null) outputWriter.close();
             }
         }
+    }
 
-        return ProcessingResult.success(mergedFile).build();
+    /** @return Whether input files that are neither merged nor minified are linked instead of copied. */
+    private boolean isLinkFiles() {
+        return processConfig.getCopyMode() == CopyMode.LINK && processConfig.isSkipMerge();
+    }
+
+    /**
+     * Deletes the given output file when it is a hard link, such as one created with the copy mode
+     * {@link CopyMode#LINK}. Writing to the file would otherwise change the content of the other links as well, such as
+     * the input file. The output file is then created as a new file.
+     *
+     * @param outputFile An output file that is about to be written.
+     * @param sourceFiles The source files of the output file. The output file is kept when it is one of them.
+     * @throws IOException When the file could not be deleted.
+     */
+    protected final void unlink(File outputFile, Collection<File> sourceFiles) throws IOException {
+        final var outputPath = outputFile.getAbsolutePath();
+        if (sourceFiles.stream()
+                .anyMatch(sourceFile -> sourceFile.getAbsolutePath().equals(outputPath))) {
+            return;
+        }
+        final Object linkCount;
+        try {
+            linkCount = Files.getAttribute(outputFile.toPath(), "unix:nlink", LinkOption.NOFOLLOW_LINKS);
+        } catch (final UnsupportedOperationException | IllegalArgumentException | NoSuchFileException e) {
+            // Not supported on this platform, or the file does not exist yet
+            return;
+        }
+        if (linkCount instanceof Integer && (Integer) linkCount > 1) {
+            Files.delete(outputFile.toPath());
+        }
+    }
+
+    /**
+     * The input and output files use the same encoding, so the bytes of the input files can be copied as they are,
+     * without decoding and encoding them again. This does not work for encodings that write a byte order mark at the
+     * start of the encoded text, such as {@code UTF-16}, where the concatenated bytes differ from the encoded
+     * concatenated text.
+     *
+     * @return Whether files can be copied and merged byte by byte.
+     */
+    private boolean isByteCopySupported() {
+        final var encoding = mojoMeta.getEncoding();
+        return encoding.canEncode() && "\n\n".getBytes(encoding).length == 2 * "\n".getBytes(encoding).length;
+    }
+
+    /**
+     * @param output Stream to write to.
+     * @return A channel that writes to the given stream. For file streams, this lets the operating system copy the data
+     *     directly between the files.
+     */
+    private static WritableByteChannel toChannel(OutputStream output) {
+        return output instanceof FileOutputStream
+                ? ((FileOutputStream) output).getChannel()
+                : Channels.newChannel(output);
+    }
+
+    private static void transferFile(File file, WritableByteChannel target) throws IOException {
+        try (final var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final var size = channel.size();
+            var position = 0L;
+            while (position < size) {
+                final var transferred = channel.transferTo(position, size - position, target);
+                if (transferred <= 0) {
+                    // File was truncated in the meantime
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, byte[] bytes) throws IOException {
+        final var buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
     }
 
     /**
@@ -457,7 +727,7 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
             if (mojoMeta.getBuildContext().isIncremental()) {
                 changed = sourceFiles.stream().anyMatch(mojoMeta.getBuildContext()::hasDelta);
             } else {
-                changed = checkFilesForChanges(sourceFiles, outputFiles);
+                changed = checkFilesForChanges(sourceFiles, outputFiles) || hasConfigurationChanged(outputFiles);
             }
         }
         if (changed) {
@@ -479,9 +749,12 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
             case NEWER:
                 if (outputFilesExist) {
                     final var oldestOutputFile = outputFiles.stream()
+                            // A hard link has the same modification date as the source file it links to
+                            .filter(outputFile -> !isLinkToSourceFile(outputFile, sourceFiles))
                             .map(File::lastModified)
                             .min(Long::compare)
-                            .orElse(0L);
+                            .orElse(Long.MAX_VALUE);
+                    // Not from the directory index, the source files may have been written by a previous bundle
                     final var youngestSourceFile = sourceFiles.stream()
                             .map(File::lastModified)
                             .max(Long::compare)
@@ -494,11 +767,68 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
                 }
             case EXISTS:
                 return !outputFilesExist;
+            case HASH:
+                try {
+                    return !outputManifest.isContentUpToDate(sourceFiles, outputFiles);
+                } catch (IOException e) {
+                    mojoMeta.getLog().debug("Failed to compare the file digests, assuming the files changed.", e);
+                    return true;
+                }
             default:
                 throw new RuntimeException("Unhandled enum: " + processConfig.getSkipMode());
         }
     }
 
+    private boolean isLinkToSourceFile(File outputFile, Collection<File> sourceFiles) {
+        if (!isLinkFiles()) {
+            return false;
+        }
+        for (final var sourceFile : sourceFiles) {
+            try {
+                if (Files.isSameFile(sourceFile.toPath(), outputFile.toPath())) {
+                    return true;
+                }
+            } catch (final IOException e) {
+                // Treat as a different file
+            }
+        }
+        return false;
+    }
+
+    private boolean hasConfigurationChanged(Collection<File> outputFiles) {
+        try {
+            if (outputManifest.hasConfigurationChanged(outputFiles, configurationFingerprint)) {
+                mojoMeta.getLog().debug("Configuration changed since the output files were created.");
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            mojoMeta.getLog().debug("Failed to read the output manifest, assuming the configuration changed.", e);
+            return true;
+        }
+    }
+
+    /**
+     * Records the current state of the given files and the configuration after they were processed, so that subsequent
+     * builds can check whether anything changed. Must be called after the output files were written.
+     *
+     * @param sourceFiles Source files that were processed.
+     * @param outputFiles Output files that were created from the source files.
+     * @throws IOException When the files could not be read or the state could not be written.
+     */
+    protected final void recordProcessedFiles(Collection<File> sourceFiles, Collection<File> outputFiles)
+            throws IOException {
+        // The output files may be source files of other bundles
+        outputFiles.forEach(directoryIndex::invalidate);
+        outputManifest.write(
+                sourceFiles, outputFiles, configurationFingerprint, processConfig.getSkipMode() == SkipMode.HASH);
+    }
+
+    /** @return The fingerprint of all options that affect the content of the output files. */
+    protected final String getConfigurationFingerprint() {
+        return configurationFingerprint;
+    }
+
     private void logResults(List<ProcessingResult> results) {
         final long skippedCount =
                 results.stream().filter(ProcessingResult::isWasSkipped).count();
@@ -506,8 +836,13 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
         mojoMeta.getLog().info("Processed " + (processedCount + skippedCount) + " output files");
         if (processedCount > 0) {
             var message = "Created " + processedCount + " output files";
-            if (processConfig.isGzip()) {
-                message += " (and gzipped)";
+            if (!processConfig.getPrecompressions().isEmpty()) {
+                message += " (and precompressed with "
+                        + processConfig.getPrecompressions().stream()
+                                .map(precompression ->
+                                        precompression.getFormat().getId())
+                                .collect(Collectors.joining(", "))
+                        + ")";
             }
             mojoMeta.getLog().info(message);
         }
@@ -539,4 +874,35 @@ public abstract class ProcessFilesTask implements Callable<List<ProcessingResult
      * @throws MojoFailureException When the minify step fails
      */
     abstract ProcessingResult minify(List<File> srcFiles, File minifiedFile) throws IOException, MojoFailureException;
+
+    /** Mojo metadata that uses a different logger than the mojo, but is otherwise the same. */
+    private static final class TaskMojoMetadata implements MojoMetadata {
+        private final MojoMetadata mojoMeta;
+        private final Log log;
+
+        public TaskMojoMetadata(MojoMetadata mojoMeta, Log log) {
+            this.mojoMeta = mojoMeta;
+            this.log = log;
+        }
+
+        @Override
+        public MavenProject getProject() {
+            return mojoMeta.getProject();
+        }
+
+        @Override
+        public Log getLog() {
+            return log;
+        }
+
+        @Override
+        public Charset getEncoding() {
+            return mojoMeta.getEncoding();
+        }
+
+        @Override
+        public BuildContext getBuildContext() {
+            return mojoMeta.getBuildContext();
+        }
+    }
 }
@@ -0,0 +1,200 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import com.github.blutorange.maven.plugin.closurecompiler.shared.MojoMetadata;
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.JSChunk;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Task for compiling the bundles of multiple {@link ProcessJSFilesTask}s with a single invocation of the closure
+ * compiler. Each bundle becomes a chunk. Files that are included by more than one bundle are moved to a common chunk,
+ * which all other chunks depend on. This way, each file is parsed and optimized only once.
+ *
+ * <p>The tasks of the bundles are used to scan the input files and to write the output files, they are not run
+ * themselves. As the compiler may move code between the chunks, all bundles are compiled again when any input file
+ * changed.
+ */
+public final class ProcessJSChunksTask implements Callable<List<ProcessingResult>> {
+    private final MojoMetadata mojoMeta;
+
+    private final ClosureConfig closureConfig;
+
+    private final List<ProcessJSFilesTask> bundleTasks;
+
+    /**
+     * @param mojoMeta Base mojo data.
+     * @param closureConfig Google closure configuration, shared by all bundles.
+     * @param bundleTasks Tasks of the bundles to compile, with the same source and target directory.
+     */
+    public ProcessJSChunksTask(
+            MojoMetadata mojoMeta, ClosureConfig closureConfig, List<ProcessJSFilesTask> bundleTasks) {
+        this.mojoMeta = mojoMeta;
+        this.closureConfig = closureConfig;
+        this.bundleTasks =
+                bundleTasks.stream().filter(task -> !task.getFiles().isEmpty()).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ProcessingResult> call() throws IOException, MojoFailureException {
+        if (bundleTasks.isEmpty()) {
+            mojoMeta.getLog().warn("No valid JavaScript source files found to process.");
+            return List.of();
+        }
+        mojoMeta.getLog().info("Starting JavaScript task for " + bundleTasks.size() + " bundles as chunks:");
+        try {
+            return processChunks();
+        } catch (FileException e) {
+            e.getFileErrors().forEach(fileError -> fileError.addTo(mojoMeta.getBuildContext()));
+            mojoMeta.getLog().error("Failed to compile the bundles as chunks.", e);
+            throw new MojoFailureException("Closure compilation failure", e);
+        } finally {
+            bundleTasks.forEach(ProcessFilesTask::flushLog);
+        }
+    }
+
+    private List<ProcessingResult> processChunks() throws IOException, MojoFailureException {
+        final var first = bundleTasks.get(0);
+        final var sourceDir = first.getSourceDir();
+
+        // Files in more than one bundle go to the common chunk, in the order in which they are first included
+        final var bundleCounts = new LinkedHashMap<File, Integer>();
+        for (final var task : bundleTasks) {
+            for (final var file : new LinkedHashSet<>(task.getFiles())) {
+                bundleCounts.merge(file, 1, Integer::sum);
+            }
+        }
+        final var commonFiles = bundleCounts.entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .map(entry -> entry.getKey())
+                .collect(Collectors.toList());
+        final var commonFileSet = new HashSet<>(commonFiles);
+        final var allFiles = new ArrayList<>(bundleCounts.keySet());
+
+        final var commonFile = new File(first.targetDir, closureConfig.getCommonChunkFilename());
+        final var commonSourceMapFile = first.getSourceMapFile(commonFile);
+        final var allOutputFiles = new ArrayList<File>();
+        if (!commonFiles.isEmpty()) {
+            allOutputFiles.addAll(first.getOutputFiles(commonFile, commonSourceMapFile));
+        }
+        for (final var task : bundleTasks) {
+            final var mergedFile = task.getMergedFile();
+            allOutputFiles.addAll(task.getOutputFiles(mergedFile, task.getSourceMapFile(mergedFile)));
+        }
+
+        if (!first.haveFilesChanged(allFiles, allOutputFiles)) {
+            final var results = new ArrayList<ProcessingResult>();
+            if (!commonFiles.isEmpty()) {
+                results.add(ProcessingResult.skipped(commonFile).build());
+            }
+            for (final var task : bundleTasks) {
+                results.add(ProcessingResult.skipped(task.getMergedFile()).build());
+            }
+            mojoMeta.getLog()
+                    .info("Skipped " + results.size() + " output files (" + first.processConfig.getSkipMode() + ")");
+            return results;
+        }
+
+        for (final var outputFile : allOutputFiles) {
+            first.mkDir(outputFile.getParentFile());
+        }
+
+        // Create the chunk graph, each bundle depends on the common chunk
+        final var commonChunk = new JSChunk(getChunkName(first, commonFile));
+        first.createSourceFiles(commonFiles, sourceDir).forEach(commonChunk::add);
+        final var chunks = new ArrayList<JSChunk>();
+        final var chunkFiles = new ArrayList<List<File>>();
+        chunks.add(commonChunk);
+        chunkFiles.add(commonFiles);
+        for (final var task : bundleTasks) {
+            final var chunk = new JSChunk(getChunkName(task, task.getMergedFile()));
+            chunk.addDependency(commonChunk);
+            final var bundleFiles = new LinkedHashSet<>(task.getFiles());
+            bundleFiles.removeAll(commonFileSet);
+            task.createSourceFiles(new ArrayList<>(bundleFiles), sourceDir).forEach(chunk::add);
+            chunks.add(chunk);
+            chunkFiles.add(new ArrayList<>(bundleFiles));
+        }
+
+        final var fileSystemMapping = new FileSystemLocationMapping(mojoMeta.getLog(), sourceDir, commonSourceMapFile);
+        final var options = closureConfig.getCompilerOptions(
+                fileSystemMapping, commonFile, commonSourceMapFile, sourceDir, sourceDir);
+
+        final var compiler = new Compiler();
+        compiler.compileChunks(first.createExterns(), chunks, options);
+        first.checkForErrors(compiler, sourceDir);
+
+        final var results = new ArrayList<ProcessingResult>();
+        if (!commonFiles.isEmpty()) {
+            results.add(writeChunk(
+                    first, compiler, commonChunk, commonFiles, commonFile, commonSourceMapFile, fileSystemMapping));
+        }
+        for (var index = 0; index < bundleTasks.size(); index += 1) {
+            final var task = bundleTasks.get(index);
+            final var mergedFile = task.getMergedFile();
+            results.add(writeChunk(
+                    task,
+                    compiler,
+                    chunks.get(index + 1),
+                    chunkFiles.get(index + 1),
+                    mergedFile,
+                    task.getSourceMapFile(mergedFile),
+                    fileSystemMapping));
+        }
+
+        first.recordProcessedFiles(allFiles, allOutputFiles);
+        mojoMeta.getLog().info("Created " + results.size() + " output files from a single compilation.");
+        return results;
+    }
+
+    private ProcessingResult writeChunk(
+            ProcessJSFilesTask task,
+            Compiler compiler,
+            JSChunk chunk,
+            List<File> chunkFiles,
+            File minifiedFile,
+            File sourceMapFile,
+            FileSystemLocationMapping fileSystemMapping)
+            throws IOException {
+        task.mojoMeta.getLog().info("Creating the minified file [" + minifiedFile.getName() + "] from a chunk.");
+        task.mojoMeta.getLog().debug("Full path is [" + minifiedFile.getPath() + "].");
+
+        // Each chunk gets its own source map, relative to the location of that source map
+        fileSystemMapping.setTranspilationDone(false);
+        fileSystemMapping.setSourceMapFile(sourceMapFile);
+        if (closureConfig.isCreateSourceMap()) {
+            compiler.getSourceMap().reset();
+        }
+        final var compiled = compiler.toSource(chunk);
+        final var sourceMap = closureConfig.isCreateSourceMap()
+                ? CompileJob.renderSourceMap(
+                        compiler,
+                        fileSystemMapping,
+                        closureConfig.getOutputInterpolator().getWrapperPrefix(),
+                        task.getPathToSource(minifiedFile, sourceMapFile))
+                : null;
+        final var gzippedSize = task.writeMinifiedFile(compiled, sourceMap, minifiedFile, sourceMapFile);
+        mojoMeta.getBuildContext().refresh(minifiedFile);
+        task.logCompressionGains(chunkFiles, minifiedFile, gzippedSize);
+        task.flushLog();
+        return ProcessingResult.success(minifiedFile).build();
+    }
+
+    /**
+     * With the chunk output type {@code ES_MODULES}, chunks import each other by their name, so we use the path of the
+     * output file without the extension.
+     */
+    private static String getChunkName(ProcessJSFilesTask task, File outputFile) {
+        return FilenameUtils.separatorsToUnix(
+                FilenameUtils.removeExtension(FileHelper.relativizePath(task.targetDir, outputFile)));
+    }
+}
@@ -14,31 +14,34 @@
 package com.github.blutorange.maven.plugin.closurecompiler.common;
 
 import com.github.blutorange.maven.plugin.closurecompiler.shared.MojoMetadata;
-import com.google.javascript.jscomp.CommandLineRunner;
 import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.DependencyOptions.DependencyMode;
 import com.google.javascript.jscomp.SourceFile;
-import com.google.javascript.jscomp.SourceMap;
+import com.google.javascript.jscomp.deps.ModuleLoader.ResolutionMode;
 import eu.maxschuster.dataurl.DataUrlBuilder;
 import eu.maxschuster.dataurl.DataUrlEncoding;
 import eu.maxschuster.dataurl.DataUrlSerializer;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.plugin.MojoFailureException;
 
 /** Task for merging and compressing JavaScript files. */
 public final class ProcessJSFilesTask extends ProcessFilesTask {
+    private static final String CACHE_MINIFIED = "minified";
+
+    private static final String CACHE_SOURCE_MAP = "sourcemap";
 
     /**
      * Task constructor.
@@ -46,6 +49,7 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
      * @param mojoMeta Mojo meta (for log, project etc.)
      * @param processConfig Details about the process files task.
      * @param fileSpecifier Details about the input / output files.
+     * @param directoryIndex Index of the source directory, shared by all tasks of an execution.
      * @param closureConfig Google Closure Compiler configuration
      * @throws IOException When an input file could not be read of an output file could not be written.
      */
@@ -53,9 +57,10 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
             MojoMetadata mojoMeta,
             FileProcessConfig processConfig,
             FileSpecifier fileSpecifier,
+            DirectoryIndex directoryIndex,
             ClosureConfig closureConfig)
             throws IOException {
-        super(mojoMeta, processConfig, fileSpecifier, closureConfig);
+        super(mojoMeta, processConfig, fileSpecifier, directoryIndex, closureConfig);
     }
 
     /**
@@ -76,15 +81,17 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
 
     @Override
     protected ProcessingResult minify(List<File> srcFiles, File minifiedFile) throws IOException, MojoFailureException {
-        final var sourceMapFile = closureConfig
-                .getSourceMapInterpolator()
-                .interpolate(minifiedFile, minifiedFile.getParentFile(), minifiedFile.getParentFile());
-
-        if (!haveFilesChanged(
-                srcFiles,
-                closureConfig.isCreateSourceMapFile()
-                        ? Arrays.asList(minifiedFile, sourceMapFile)
-                        : Collections.singleton(minifiedFile))) {
+        final var sourceMapFile = getSourceMapFile(minifiedFile);
+        final var outputFiles = getOutputFiles(minifiedFile, sourceMapFile);
+        final var dependencyIndex = createDependencyIndex(minifiedFile, sourceMapFile, outputFiles);
+        final var reachableFiles = dependencyIndex != null
+                ? findReachableFiles(dependencyIndex, srcFiles, minifiedFile, sourceMapFile)
+                : srcFiles;
+        final var reachableFilesChanged = dependencyIndex != null && dependencyIndex.haveReachableFilesChanged();
+        if (!haveFilesChanged(reachableFiles, outputFiles) && !reachableFilesChanged) {
+            if (dependencyIndex != null) {
+                dependencyIndex.write();
+            }
             return ProcessingResult.skipped(minifiedFile).build();
         }
 
@@ -95,7 +102,20 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
             mkDir(sourceMapFile.getParentFile());
         }
 
-        final var outputInterpolator = closureConfig.getOutputInterpolator();
+        final var compilationCache = processConfig.getCompilationCache();
+        final var cacheKey =
+                compilationCache != null ? createCacheKey(reachableFiles, minifiedFile, sourceMapFile) : null;
+        if (cacheKey != null) {
+            final var restored = restoreFromCache(compilationCache, cacheKey, minifiedFile, sourceMapFile);
+            if (restored != null) {
+                mojoMeta.getBuildContext().refresh(minifiedFile);
+                recordProcessedFiles(reachableFiles, outputFiles);
+                if (dependencyIndex != null) {
+                    dependencyIndex.write();
+                }
+                return restored;
+            }
+        }
 
         mojoMeta.getLog().info("Creating the minified file [" + minifiedFile.getName() + "].");
         mojoMeta.getLog().debug("Full path is [" + minifiedFile.getPath() + "].");
@@ -106,70 +126,232 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
                 .debug("Setting base dir for closure source files to [" + baseDirForSourceFiles.getAbsolutePath()
                         + "]");
 
-        final var sourceFileList = new ArrayList<SourceFile>();
-        for (final var srcFile : srcFiles) {
-            try (InputStream in = new FileInputStream(srcFile)) {
-                SourceFile input = SourceFile.builder()
-                        .withPath(FileHelper.relativizePath(baseDirForSourceFiles, srcFile))
-                        .withCharset(mojoMeta.getEncoding())
-                        .withContent(in)
-                        .build();
-                sourceFileList.add(input);
-            }
-        }
-
-        // Create compiler options
-        final var fileSystemMapping =
-                new FileSystemLocationMapping(mojoMeta.getLog(), baseDirForSourceFiles, sourceMapFile);
-        final var options = closureConfig.getCompilerOptions(
-                fileSystemMapping, minifiedFile, sourceMapFile, baseDirForSourceFiles, sourceDir);
+        final var job = createCompileJob(reachableFiles, baseDirForSourceFiles, minifiedFile, sourceMapFile);
 
         if (mojoMeta.getLog().isDebugEnabled()) {
+            final var options = job.createCompilerOptions(null);
             mojoMeta.getLog()
-                    .debug("Transpiling with closure source files: ["
-                            + sourceFileList.stream().map(SourceFile::toString).collect(Collectors.joining(", "))
-                            + "]");
+                    .debug("Transpiling with closure source files: [" + String.join(", ", job.getSourcePaths()) + "]");
             mojoMeta.getLog()
                     .debug("Transpiling from [" + options.getLanguageIn() + "] to [" + closureConfig.getLanguageOut()
                             + "], strict=" + options.shouldEmitUseStrict());
             mojoMeta.getLog().debug("Starting compilations with closure compiler options: " + options);
         }
 
-        // Set (external) libraries to be available
-        final var externs = new ArrayList<SourceFile>();
-        externs.addAll(CommandLineRunner.getBuiltinExterns(closureConfig.getEnvironment()));
-        externs.addAll(closureConfig.getExterns());
-
         // Now compile
-        final var compiler = new Compiler();
-        compiler.compile(externs, sourceFileList, options);
+        final var result = compile(job);
 
         // Check for errors.
-        checkForErrors(compiler, baseDirForSourceFiles);
+        checkForErrors(result.getWarnings(), result.getErrors(), baseDirForSourceFiles);
 
         // Write compiled file to output file
-        final var compiled = compiler.toSource();
+        final var gzippedSize =
+                writeMinifiedFile(result.getCompiled(), result.getSourceMap(), minifiedFile, sourceMapFile);
+
+        mojoMeta.getBuildContext().refresh(minifiedFile);
+        recordProcessedFiles(reachableFiles, outputFiles);
+        if (dependencyIndex != null) {
+            dependencyIndex.write();
+        }
+
+        logCompressionGains(reachableFiles, minifiedFile, gzippedSize);
+
+        if (cacheKey != null) {
+            return storeInCache(compilationCache, cacheKey, minifiedFile, sourceMapFile);
+        }
+
+        return ProcessingResult.success(minifiedFile).build();
+    }
+
+    /**
+     * Creates the index for pruning the source files that are not reachable from the entry points. Only the dependency
+     * modes that prune files are supported, and only when the closure compiler resolves modules like a browser, so that
+     * the index finds the same dependencies as the closure compiler.
+     *
+     * @return The index, or <code>null</code> when the source files cannot be pruned.
+     */
+    private DependencyIndex createDependencyIndex(File minifiedFile, File sourceMapFile, List<File> outputFiles)
+            throws IOException {
+        final var dependencyMode = closureConfig.getDependencyMode();
+        final var compilerOptionsFactory = closureConfig.getCompilerOptionsFactory();
+        if ((dependencyMode != DependencyMode.PRUNE && dependencyMode != DependencyMode.PRUNE_LEGACY)
+                || compilerOptionsFactory.isProcessCommonJsModules()
+                || compilerOptionsFactory.getModuleResolution() != ResolutionMode.BROWSER) {
+            return null;
+        }
+        return new DependencyIndex(
+                processConfig.getManifestDir(),
+                outputFiles,
+                getBaseDirForSourceFiles(minifiedFile, sourceMapFile),
+                mojoMeta.getEncoding(),
+                compilerOptionsFactory.getModuleRoots(),
+                getDirectoryIndex(),
+                mojoMeta.getLog());
+    }
+
+    private List<File> findReachableFiles(
+            DependencyIndex dependencyIndex, List<File> srcFiles, File minifiedFile, File sourceMapFile)
+            throws IOException {
+        final var entryPoints =
+                closureConfig.getEntryPoints(getBaseDirForSourceFiles(minifiedFile, sourceMapFile), sourceDir);
+        final var reachableFiles = dependencyIndex.findReachableFiles(
+                srcFiles, entryPoints, closureConfig.getDependencyMode() == DependencyMode.PRUNE_LEGACY);
+        if (reachableFiles.size() < srcFiles.size()) {
+            mojoMeta.getLog()
+                    .debug("Pruned [" + (srcFiles.size() - reachableFiles.size())
+                            + "] source files that are not reachable from the entry points.");
+        }
+        return reachableFiles;
+    }
+
+    /**
+     * Compiles the job in the compiler daemon, when enabled. Otherwise, or when the daemon cannot be used, the job is
+     * compiled in the Maven JVM.
+     */
+    private CompileResult compile(CompileJob job) throws IOException {
+        final var compilerDaemon = processConfig.getCompilerDaemon();
+        if (compilerDaemon != null) {
+            try {
+                return compilerDaemon.compile(job, mojoMeta.getLog());
+            } catch (final IOException e) {
+                mojoMeta.getLog()
+                        .warn("Failed to use the compiler daemon, compiling in the Maven JVM instead: "
+                                + e.getMessage());
+                mojoMeta.getLog().debug(e);
+            }
+        }
+        return job.run(mojoMeta.getLog());
+    }
+
+    private CompileJob createCompileJob(
+            List<File> srcFiles, File baseDirForSourceFiles, File minifiedFile, File sourceMapFile)
+            throws IOException, MojoFailureException {
+        final var sources = new ArrayList<CompileJob.Source>();
+        for (final var srcFile : srcFiles) {
+            sources.add(CompileJob.Source.ofFile(srcFile, baseDirForSourceFiles, mojoMeta.getEncoding()));
+        }
+        return new CompileJob(
+                closureConfig,
+                closureConfig.getDependencyOptions(baseDirForSourceFiles, sourceDir),
+                sources,
+                baseDirForSourceFiles,
+                sourceMapFile,
+                closureConfig.isCreateSourceMap() ? getPathToSource(minifiedFile, sourceMapFile) : null);
+    }
+
+    /**
+     * @param minifiedFile The minified file.
+     * @param sourceMapFile The source map file for the minified file.
+     * @return Path of the minified file relative to the source map.
+     */
+    String getPathToSource(File minifiedFile, File sourceMapFile) {
+        final var pathToSource =
+                FilenameUtils.separatorsToUnix(FileHelper.relativizePath(sourceMapFile.getParentFile(), minifiedFile));
+        mojoMeta.getLog().debug("Setting path to source in source map to [" + pathToSource + "].");
+        return pathToSource;
+    }
+
+    /**
+     * @param minifiedFile The minified file.
+     * @return The source map file for the given minified file.
+     */
+    File getSourceMapFile(File minifiedFile) {
+        return closureConfig
+                .getSourceMapInterpolator()
+                .interpolate(minifiedFile, minifiedFile.getParentFile(), minifiedFile.getParentFile());
+    }
+
+    /**
+     * @param minifiedFile The minified file.
+     * @param sourceMapFile The source map file for the minified file.
+     * @return All files that are created when minifying, depending on whether a source map file is created and in which
+     *     formats the minified file is precompressed.
+     */
+    List<File> getOutputFiles(File minifiedFile, File sourceMapFile) {
+        final var outputFiles = withPrecompressedFiles(minifiedFile);
+        if (closureConfig.isCreateSourceMapFile()) {
+            outputFiles.add(sourceMapFile);
+        }
+        return outputFiles;
+    }
+
+    /**
+     * Creates the closure source files for the given files. The files are read only when the closure compiler parses
+     * them, see {@link CompileJob.Source#toSourceFile()}. A {@link SourceFile} holds mutable state, so new source files
+     * must be created for each compilation.
+     *
+     * @param srcFiles Files to compile.
+     * @param baseDirForSourceFiles Directory to which the paths of the source files are relative.
+     * @return The source files, in the same order as the given files.
+     */
+    List<SourceFile> createSourceFiles(List<File> srcFiles, File baseDirForSourceFiles) {
+        final var sourceFileList = new ArrayList<SourceFile>();
+        for (final var srcFile : srcFiles) {
+            sourceFileList.add(CompileJob.Source.ofFile(srcFile, baseDirForSourceFiles, mojoMeta.getEncoding())
+                    .toSourceFile());
+        }
+        return sourceFileList;
+    }
+
+    /**
+     * @return The builtin externs and the externs configured by the user.
+     * @throws IOException When an extern could not be read.
+     */
+    List<SourceFile> createExterns() throws IOException {
+        final var externs = new ArrayList<SourceFile>();
+        externs.addAll(BuiltinExterns.get(closureConfig.getEnvironment()));
+        externs.addAll(closureConfig.getExterns());
+        return externs;
+    }
 
+    /**
+     * Writes the compiled code to the minified file, wrapped with the output wrapper, and creates the source map, if
+     * configured. When gzip is enabled, the *.gz file is created at the same time. The other precompressed files are
+     * created afterwards, as well as the *.gz file when it is compressed with Zopfli, as that is much slower than
+     * writing the minified file.
+     *
+     * @param compiled The compiled code.
+     * @param sourceMap The source map of the compiled code, or <code>null</code> when no source map is created.
+     * @param minifiedFile File to write.
+     * @param sourceMapFile Source map file for the minified file.
+     * @return The size of the minified file when compressed with GZIP, or <code>-1</code> when the size was not
+     *     computed, because neither gzip is enabled nor the compression gains are logged.
+     * @throws IOException When a file could not be written.
+     */
+    long writeMinifiedFile(String compiled, String sourceMap, File minifiedFile, File sourceMapFile)
+            throws IOException {
+        final var outputInterpolator = closureConfig.getOutputInterpolator();
         OutputStream output;
+        final var gzip = processConfig.getPrecompression(Precompression.Format.GZIP);
+        final var teeGzip = gzip != null && !gzip.isZopfli();
+        GzipTeeOutputStream gzipOutput = null;
         Writer outputWriter = null;
         try {
+            // The source files were compiled already, so the minified file can be replaced even when it is one of them
+            unlink(minifiedFile, List.of());
             output = mojoMeta.getBuildContext().newFileOutputStream(minifiedFile);
             try {
-                outputWriter = new OutputStreamWriter(output, mojoMeta.getEncoding());
+                // Compress while writing, instead of reading the minified file again afterwards
+                if (teeGzip || (gzip == null && isLogCompressionGains())) {
+                    final var gzipFile = teeGzip ? gzip.getFile(minifiedFile) : null;
+                    final var gzipLevel = teeGzip ? gzip : Precompression.of(Precompression.Format.GZIP);
+                    output = gzipOutput =
+                            GzipTeeOutputStream.of(output, gzipFile, gzipLevel, processConfig.getBufferSize());
+                }
+                outputWriter = new BufferedWriter(
+                        new OutputStreamWriter(output, mojoMeta.getEncoding()), processConfig.getBufferSize());
             } finally {
                 // When new OutputStreamWriter threw an exception, writer is null
                 if (outputWriter == null && output != null) {
                     output.close();
                 }
             }
-            outputWriter.append(outputInterpolator.apply(compiled));
+            // Write the output wrapper and the compiled code directly, without creating a copy of the compiled code
+            outputInterpolator.writeTo(compiled, outputWriter);
 
             // Create source map if configured.
-            if (closureConfig.isCreateSourceMap()) {
-                // Adjust source map for output wrapper.
-                compiler.getSourceMap().setWrapperPrefix(outputInterpolator.getWrapperPrefix());
-                fileSystemMapping.setTranspilationDone(true);
-                createSourceMap(outputWriter, compiler, minifiedFile, sourceMapFile);
+            if (sourceMap != null) {
+                createSourceMap(outputWriter, sourceMap, minifiedFile, sourceMapFile);
             }
 
             // Make sure we end with a new line
@@ -181,47 +363,152 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
                 outputWriter.close();
             }
         }
+        precompress(minifiedFile, teeGzip);
+        if (gzip != null && !teeGzip) {
+            return gzip.getFile(minifiedFile).length();
+        }
+        return gzipOutput != null ? gzipOutput.getGzipSize() : -1;
+    }
 
-        mojoMeta.getBuildContext().refresh(minifiedFile);
+    /**
+     * Creates the key for the compilation cache. The output depends on the content of the source files, their paths
+     * (which appear in error messages and the source map), the location of the output files relative to the source
+     * directory, and the effective configuration, which includes the version of the closure compiler.
+     */
+    private String createCacheKey(List<File> srcFiles, File minifiedFile, File sourceMapFile) throws IOException {
+        final var sources = new ArrayList<String>();
+        for (final var srcFile : srcFiles) {
+            sources.add(FileHelper.relativizePath(sourceDir, srcFile) + ":" + DigestHelper.digest(srcFile));
+        }
+        return new Fingerprint()
+                .add("configuration", getConfigurationFingerprint())
+                .add("sources", sources)
+                .add("minified", FileHelper.relativizePath(sourceDir, minifiedFile))
+                .add("sourceMap", FileHelper.relativizePath(sourceDir, sourceMapFile))
+                .build();
+    }
 
-        logCompressionGains(srcFiles, compiled);
+    /**
+     * Restores the output files from the compilation cache.
+     *
+     * @return The result of the minification, or <code>null</code> when no usable entry exists in the cache.
+     */
+    private ProcessingResult restoreFromCache(
+            CompilationCache compilationCache, String cacheKey, File minifiedFile, File sourceMapFile)
+            throws IOException {
+        final Map<String, File> entry;
+        try {
+            entry = compilationCache.get(cacheKey);
+        } catch (final IOException e) {
+            mojoMeta.getLog().warn("Failed to read from the remote compilation cache: " + e.getMessage());
+            mojoMeta.getLog().debug(e);
+            return null;
+        }
+        if (entry == null) {
+            return null;
+        }
+        final var cachedMinified = entry.get(CACHE_MINIFIED);
+        final var cachedSourceMap = entry.get(CACHE_SOURCE_MAP);
+        final var precompressions = processConfig.getPrecompressions();
+        if (cachedMinified == null
+                || (closureConfig.isCreateSourceMapFile() && cachedSourceMap == null)
+                || precompressions.stream()
+                        .anyMatch(precompression -> !entry.containsKey(getCacheName(precompression)))) {
+            compilationCache.miss();
+            return null;
+        }
+        try {
+            restoreFile(cachedMinified, minifiedFile);
+            if (closureConfig.isCreateSourceMapFile()) {
+                restoreFile(cachedSourceMap, sourceMapFile);
+            }
+            for (final var precompression : precompressions) {
+                restoreFile(entry.get(getCacheName(precompression)), precompression.getFile(minifiedFile));
+            }
+        } catch (final NoSuchFileException e) {
+            // Entry was evicted by another build in the meantime
+            compilationCache.miss();
+            return null;
+        }
+        mojoMeta.getLog()
+                .info("Restored the minified file [" + minifiedFile.getName() + "] from the compilation cache.");
+        return ProcessingResult.success(minifiedFile).build();
+    }
 
+    private void restoreFile(File cachedFile, File targetFile) throws IOException {
+        unlink(targetFile, List.of());
+        // Closing the OutputStream from m2e as well causes a StreamClosed exception in m2e, see minify
+        final var output = mojoMeta.getBuildContext().newFileOutputStream(targetFile);
+        try {
+            Files.copy(cachedFile.toPath(), output);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Stores the output files in the compilation cache. The precompressed files were created together with the minified
+     * file, so that they can be stored in the cache as well.
+     */
+    private ProcessingResult storeInCache(
+            CompilationCache compilationCache, String cacheKey, File minifiedFile, File sourceMapFile)
+            throws IOException {
+        final var entry = new HashMap<String, File>();
+        entry.put(CACHE_MINIFIED, minifiedFile);
+        if (closureConfig.isCreateSourceMapFile()) {
+            entry.put(CACHE_SOURCE_MAP, sourceMapFile);
+        }
+        for (final var precompression : processConfig.getPrecompressions()) {
+            entry.put(getCacheName(precompression), precompression.getFile(minifiedFile));
+        }
+        try {
+            compilationCache.put(cacheKey, entry);
+        } catch (final IOException e) {
+            mojoMeta.getLog().warn("Failed to store the minified file in the compilation cache: " + e.getMessage());
+            mojoMeta.getLog().debug(e);
+        }
         return ProcessingResult.success(minifiedFile).build();
     }
 
+    /** The level is part of the cache key already, as part of the configuration. */
+    private static String getCacheName(Precompression precompression) {
+        return precompression.getFormat().getId();
+    }
+
     private File getBaseDirForSourceFiles(File minifiedFile, File sourceMapFile) {
         return this.sourceDir;
     }
 
-    private void checkForErrors(Compiler compiler, File baseDirForSourceFiles) {
+    void checkForErrors(Compiler compiler, File baseDirForSourceFiles) {
+        checkForErrors(
+                CompileResult.messagesOf(compiler.getWarnings()),
+                CompileResult.messagesOf(compiler.getErrors()),
+                baseDirForSourceFiles);
+    }
+
+    private void checkForErrors(
+            List<CompileResult.Message> warnings, List<CompileResult.Message> errors, File baseDirForSourceFiles) {
         // Add warning to build context, so it shows up in IDEs etc.
-        for (final var warning : compiler.getWarnings()) {
-            ClosureCompileFileMessage.ofWarning(warning, compiler, baseDirForSourceFiles)
-                    .addTo(mojoMeta.getBuildContext());
+        for (final var warning : warnings) {
+            ClosureCompileFileMessage.ofWarning(warning, baseDirForSourceFiles).addTo(mojoMeta.getBuildContext());
         }
 
-        final var errors = new ArrayList<>(compiler.getErrors());
         if (!errors.isEmpty()) {
-            final var fileErrors = errors.stream()
-                    .map(error -> ClosureCompileFileMessage.ofError(error, compiler, baseDirForSourceFiles));
+            final var fileErrors =
+                    errors.stream().map(error -> ClosureCompileFileMessage.ofError(error, baseDirForSourceFiles));
             throw new FileException(fileErrors::iterator);
         }
     }
 
-    private void createSourceMap(Writer writer, Compiler compiler, File minifiedFile, File sourceMapFile)
+    private void createSourceMap(Writer writer, String sourceMap, File minifiedFile, File sourceMapFile)
             throws IOException {
-        final var pathToSource =
-                FilenameUtils.separatorsToUnix(FileHelper.relativizePath(sourceMapFile.getParentFile(), minifiedFile));
-        mojoMeta.getLog().debug("Setting path to source in source map to [" + pathToSource + "].");
         switch (closureConfig.getSourceMapOutputType()) {
             case inline: {
                 mojoMeta.getLog().info("Creating the inline source map.");
-                final var sb = new StringBuilder();
-                compiler.getSourceMap().appendTo(sb, pathToSource);
                 final var dataUrl = new DataUrlBuilder()
                         .setMimeType("application/json")
                         .setEncoding(DataUrlEncoding.BASE64)
-                        .setData(sb.toString().getBytes(StandardCharsets.UTF_8))
+                        .setData(sourceMap.getBytes(StandardCharsets.UTF_8))
                         .setHeader("charset", "utf-8")
                         .build();
                 final var serializer = new DataUrlSerializer();
@@ -231,13 +518,13 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
                 break;
             }
             case file:
-                flushSourceMap(sourceMapFile, pathToSource, compiler.getSourceMap());
+                flushSourceMap(sourceMapFile, sourceMap);
                 break;
             case reference: {
                 mojoMeta.getLog().info("Creating reference to source map.");
                 final var pathToMap = FilenameUtils.separatorsToUnix(
                         FileHelper.relativizePath(minifiedFile.getParentFile(), sourceMapFile));
-                flushSourceMap(sourceMapFile, pathToSource, compiler.getSourceMap());
+                flushSourceMap(sourceMapFile, sourceMap);
                 writer.append(processConfig.getLineSeparator());
                 writer.append("//# sourceMappingURL=").append(pathToMap);
                 break;
@@ -250,7 +537,7 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
         }
     }
 
-    private void flushSourceMap(File sourceMapFile, String pathToSource, SourceMap sourceMap) throws IOException {
+    private void flushSourceMap(File sourceMapFile, String sourceMap) throws IOException {
         mojoMeta.getLog().info("Creating the source map [" + sourceMapFile.getName() + "].");
         mojoMeta.getLog().debug("Full path is [" + sourceMapFile.getPath() + "].");
 
@@ -265,7 +552,7 @@ public final class ProcessJSFilesTask extends ProcessFilesTask {
                 if (outputWriter == null && output != null) output.close();
             }
 
-            sourceMap.appendTo(outputWriter, pathToSource);
+            outputWriter.append(sourceMap);
         } catch (IOException e) {
             mojoMeta.getLog()
                     .error("Failed to write the JavaScript Source Map file [" + sourceMapFile.getName() + "].", e);
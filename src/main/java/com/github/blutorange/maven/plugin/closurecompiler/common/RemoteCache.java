@@ -0,0 +1,56 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * A remote cache shared by multiple machines, such as the agents of a CI server. It is consulted by the
+ * {@link CompilationCache} when an entry does not exist locally. Each entry is stored as a single ZIP archive that
+ * contains the files of the entry.
+ *
+ * <p>Implementations are created by a {@link RemoteCacheProvider}. Additional providers can be added to the
+ * dependencies of the plugin and registered via {@link ServiceLoader}.
+ */
+public interface RemoteCache {
+    /**
+     * @param key Key of the entry.
+     * @return The ZIP archive with the files of the entry, or <code>null</code> if no such entry exists.
+     * @throws IOException When the remote cache could not be accessed.
+     */
+    byte[] get(String key) throws IOException;
+
+    /**
+     * Stores an entry in the remote cache, replacing the existing entry with the same key, if any.
+     *
+     * @param key Key of the entry.
+     * @param entry The ZIP archive with the files of the entry.
+     * @throws IOException When the remote cache could not be accessed.
+     */
+    void put(String key, byte[] entry) throws IOException;
+
+    /**
+     * Creates the remote cache for the given URL. Providers registered via {@link ServiceLoader} take precedence over
+     * the built-in providers for a directory ({@code file:}) and an HTTP server ({@code http:} and {@code https:}).
+     *
+     * @param url URL of the remote cache.
+     * @param classLoader Class loader for looking up the registered providers.
+     * @return The remote cache for the given URL.
+     * @throws IllegalArgumentException When no provider supports the given URL.
+     */
+    static RemoteCache create(String url, ClassLoader classLoader) {
+        final var uri = URI.create(url);
+        for (final var provider : ServiceLoader.load(RemoteCacheProvider.class, classLoader)) {
+            if (provider.supports(uri)) {
+                return provider.create(uri);
+            }
+        }
+        for (final var provider : List.of(new DirectoryRemoteCache.Provider(), new HttpRemoteCache.Provider())) {
+            if (provider.supports(uri)) {
+                return provider.create(uri);
+            }
+        }
+        throw new IllegalArgumentException("Unsupported remote cache URL [" + url + "]");
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import java.net.URI;
+
+/** Service provider interface for creating a {@link RemoteCache} from the URL configured by the user. */
+public interface RemoteCacheProvider {
+    /**
+     * @param uri URL of the remote cache.
+     * @return Whether this provider can create a remote cache for the given URL, usually based on its scheme.
+     */
+    boolean supports(URI uri);
+
+    /**
+     * @param uri URL of the remote cache, for which {@link #supports(URI)} returned <code>true</code>.
+     * @return The remote cache for the given URL.
+     */
+    RemoteCache create(URI uri);
+}
@@ -0,0 +1,12 @@
+package com.github.blutorange.maven.plugin.closurecompiler.plugin;
+
+/** Enumeration for the possible options of how input files are copied when they are neither merged nor minified. */
+public enum CopyMode {
+    /** Write a copy of each input file. */
+    COPY,
+    /**
+     * Create a hard link to each input file, so that its content is not stored twice. Falls back to a copy when the
+     * file system does not support hard links, or when the input and output files are on different file systems.
+     */
+    LINK;
+}
@@ -5,5 +5,10 @@ public enum SkipMode {
     /** Do not recreate an output file when it is newer (more recently modified) that all input files. */
     NEWER,
     /** Do not recreate an output file when it exists already, irrespective of the modification date. */
-    EXISTS;
+    EXISTS,
+    /**
+     * Do not recreate an output file when the content of all input and output files is the same as when the output file
+     * was created. The digests of the files are stored in a manifest in the build directory.
+     */
+    HASH;
 }
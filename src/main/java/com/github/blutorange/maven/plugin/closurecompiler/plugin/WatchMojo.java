@@ -0,0 +1,376 @@
+package com.github.blutorange.maven.plugin.closurecompiler.plugin;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.github.blutorange.maven.plugin.closurecompiler.common.ClosureConfig;
+import com.github.blutorange.maven.plugin.closurecompiler.common.CompilationCache;
+import com.github.blutorange.maven.plugin.closurecompiler.common.CompilerDaemonClient;
+import com.github.blutorange.maven.plugin.closurecompiler.common.HtmlUpdater;
+import com.github.blutorange.maven.plugin.closurecompiler.common.ProcessFilesTask;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+/**
+ * Goal which processes all bundles once, then watches the source files and recompiles the affected bundles whenever a
+ * file changes, until the build is terminated (such as via Ctrl+C). It accepts the same configuration as the
+ * {@code minify} goal.
+ *
+ * <p>Unlike running the {@code minify} goal repeatedly, the closure compiler options and the externs are prepared only
+ * once and reused for each recompilation, and only the bundles that contain a changed file are recompiled. When the
+ * externs change, they are read again and all bundles are recompiled. When a file changes while bundles are still being
+ * recompiled, the current compilation is cancelled and restarted with the new changes.
+ *
+ * <p>Errors are logged, but do not stop the goal, so that they can be fixed while it is running.
+ *
+ * @since 2.33.0
+ */
+@Mojo(name = "watch", threadSafe = true)
+public class WatchMojo extends MinifyMojo {
+    /**
+     * Time in milliseconds to wait for further changes before the affected bundles are recompiled. Editors and other
+     * tools often write multiple files or write a file in multiple steps, this avoids compiling incomplete changes.
+     *
+     * @since 2.33.0
+     */
+    @Parameter(property = "watchDelay", defaultValue = "200")
+    private long watchDelay;
+
+    /**
+     * Indices of the bundles that need to be recompiled, with the generation of the changes that marked them last.
+     * Guarded by {@code this}, together with {@link #tasks} and {@link #generation}.
+     */
+    private final Map<Integer, Long> dirtyBundles = new HashMap<>();
+
+    /** Incremented for each set of changes that marks bundles as dirty. */
+    private long generation;
+
+    private MojoMetaImpl mojoMeta;
+
+    private HtmlUpdater htmlUpdater;
+
+    private CompilationCache compilationCache;
+
+    private CompilerDaemonClient compilerDaemon;
+
+    private volatile ClosureConfig closureConfig;
+
+    private List<ProcessFilesTask> tasks;
+
+    @Inject
+    public WatchMojo(BuildContext buildContext) {
+        super(buildContext);
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (!prepareExecution()) {
+            return;
+        }
+
+        mojoMeta = createMojoMeta(resolveBuildContext());
+        htmlUpdater = createHtmlUpdater(mojoMeta);
+        compilationCache = createCompilationCache();
+        compilerDaemon = createCompilerDaemonClient();
+        closureConfig = new ClosureConfig(this);
+        final var initialTasks = createTasks(mojoMeta, closureConfig, compilationCache, compilerDaemon, isForce());
+        synchronized (this) {
+            tasks = initialTasks;
+        }
+
+        try {
+            processTasks(
+                    combineTasks(mojoMeta, closureConfig, initialTasks),
+                    htmlUpdater,
+                    getEffectiveThreads(mojoMeta.getBuildContext()));
+        } catch (MojoFailureException e) {
+            getLog().error(e.getMessage());
+        }
+        if (compilationCache != null) {
+            compilationCache.evict(getLog());
+        }
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            final var thread = new Thread(runnable, "closure-compiler-watch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (final var watchService = FileSystems.getDefault().newWatchService()) {
+            registerDirectories(watchService);
+            getLog().info("Waiting for changes...");
+            watch(watchService, executor);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to watch the source files: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void watch(WatchService watchService, ExecutorService executor) throws IOException, InterruptedException {
+        Future<?> compilation = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            final var changedFiles = new HashSet<Path>();
+            var overflow = collectChanges(watchService, watchService.take(), changedFiles);
+            // Wait until no more changes arrive
+            WatchKey nextKey;
+            while ((nextKey = watchService.poll(watchDelay, TimeUnit.MILLISECONDS)) != null) {
+                overflow |= collectChanges(watchService, nextKey, changedFiles);
+            }
+            try {
+                if (!markAffectedBundles(changedFiles, overflow)) {
+                    continue;
+                }
+            } catch (MojoFailureException e) {
+                getLog().error(e.getMessage());
+                continue;
+            }
+            registerDirectories(watchService);
+            if (compilation != null && !compilation.isDone()) {
+                getLog().info("Files changed, cancelling the current compilation.");
+                compilation.cancel(true);
+            }
+            // The executor is single-threaded, so this waits until a cancelled compilation has stopped
+            compilation = executor.submit(this::compileDirtyBundles);
+        }
+    }
+
+    /**
+     * Collects the files that were changed according to the given watch key.
+     *
+     * @return Whether events were lost, so that changes may be missing.
+     */
+    private boolean collectChanges(WatchService watchService, WatchKey key, Set<Path> changedFiles) throws IOException {
+        var overflow = false;
+        final var dir = (Path) key.watchable();
+        for (final var event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            final var file =
+                    dir.resolve((Path) event.context()).toAbsolutePath().normalize();
+            changedFiles.add(file);
+            // Files moved into the watched directories as part of a directory do not create events of their own
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(file)) {
+                try (final var files = Files.walk(file)) {
+                    files.map(path -> path.toAbsolutePath().normalize()).forEach(changedFiles::add);
+                }
+                registerRecursively(watchService, file);
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    /**
+     * Marks all bundles as dirty that contain a changed file. The source directories are scanned again, so that added
+     * and removed files are taken into account.
+     *
+     * @return Whether any bundle was affected by the changes.
+     */
+    private boolean markAffectedBundles(Set<Path> changedFiles, boolean overflow) throws MojoFailureException {
+        var all = overflow;
+        if (containsAny(closureConfig.getExternFiles(), changedFiles)) {
+            getLog().info("Externs changed, reading them again.");
+            closureConfig = new ClosureConfig(this);
+            all = true;
+        }
+        final var bundleConfigurationFile = getBundleConfigurationFile();
+        if (bundleConfigurationFile != null
+                && changedFiles.contains(
+                        bundleConfigurationFile.toPath().toAbsolutePath().normalize())) {
+            all = true;
+        }
+
+        final var oldTasks = getTasks();
+        final var newTasks = createTasks(mojoMeta, closureConfig, compilationCache, compilerDaemon, true);
+        all |= newTasks.size() != oldTasks.size();
+        final var affected = new TreeSet<Integer>();
+        for (var index = 0; index < newTasks.size(); index += 1) {
+            if (all
+                    || containsAny(newTasks.get(index).getFiles(), changedFiles)
+                    || containsAny(oldTasks.get(index).getFiles(), changedFiles)) {
+                affected.add(index);
+            }
+        }
+        if (affected.isEmpty()) {
+            getLog().debug("No bundle is affected by the changed files " + changedFiles);
+            return false;
+        }
+        synchronized (this) {
+            tasks = newTasks;
+            generation += 1;
+            dirtyBundles.keySet().removeIf(index -> index >= newTasks.size());
+            for (final var index : affected) {
+                dirtyBundles.put(index, generation);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles all dirty bundles, one after another. Stops when this compilation is cancelled because of newer changes.
+     * The dirty bundles that were not compiled yet are then compiled by the next compilation. When the bundles are
+     * compiled as chunks, all bundles are compiled at once.
+     *
+     * <p>Nobody waits for the result of the compilation, so all errors are logged here.
+     */
+    private void compileDirtyBundles() {
+        try {
+            compileBundles(startCompilation());
+        } catch (RuntimeException e) {
+            getLog().error("Failed to compile the changed bundles: " + e.getMessage(), e);
+        }
+        if (!Thread.currentThread().isInterrupted()) {
+            getLog().info("Waiting for changes...");
+        }
+    }
+
+    private void compileBundles(Compilation compilation) {
+        if (isCompileAsChunks()) {
+            if (compilation.dirtyBundles.isEmpty()) {
+                return;
+            }
+            try {
+                processTasks(combineTasks(mojoMeta, closureConfig, compilation.tasks), htmlUpdater, 1);
+            } catch (MojoFailureException | MojoExecutionException e) {
+                if (isCancelled(compilation)) {
+                    return;
+                }
+                getLog().error(e.getMessage());
+            }
+            compilation.dirtyBundles.forEach(this::markCompiled);
+            return;
+        }
+        for (final var dirtyBundle : compilation.dirtyBundles.entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                processTasks(List.of(compilation.tasks.get(dirtyBundle.getKey())), htmlUpdater, 1);
+            } catch (MojoFailureException | MojoExecutionException e) {
+                if (isCancelled(compilation)) {
+                    return;
+                }
+                getLog().error(e.getMessage());
+            }
+            markCompiled(dirtyBundle.getKey(), dirtyBundle.getValue());
+        }
+    }
+
+    /** @return The current tasks and dirty bundles, taken at the same time so that they always match. */
+    private synchronized Compilation startCompilation() {
+        return new Compilation(tasks, new TreeMap<>(dirtyBundles), generation);
+    }
+
+    /**
+     * The compiler may clear the interrupt flag and fail with an error instead when it is interrupted, so a compilation
+     * is also considered cancelled when there are newer changes. A new compilation follows for these changes.
+     *
+     * @return Whether the given compilation was cancelled or newer changes were made since it started.
+     */
+    private synchronized boolean isCancelled(Compilation compilation) {
+        return Thread.currentThread().isInterrupted() || generation != compilation.generation;
+    }
+
+    /**
+     * Marks a bundle as compiled, unless the compilation was cancelled or the bundle was marked as dirty again since
+     * the compilation started. The compiler does not stop when it is interrupted, so it may have compiled outdated
+     * content.
+     *
+     * @param index Index of the compiled bundle.
+     * @param markedGeneration Generation of the changes that marked the bundle when the compilation started.
+     */
+    private synchronized void markCompiled(int index, long markedGeneration) {
+        if (!Thread.currentThread().isInterrupted() && Objects.equals(dirtyBundles.get(index), markedGeneration)) {
+            dirtyBundles.remove(index);
+        }
+    }
+
+    private synchronized List<ProcessFilesTask> getTasks() {
+        return tasks;
+    }
+
+    private void registerDirectories(WatchService watchService) throws IOException {
+        final var directories = new HashSet<Path>();
+        for (final var task : getTasks()) {
+            directories.add(task.getSourceDir().toPath());
+        }
+        for (final var extern : closureConfig.getExternFiles()) {
+            directories.add(extern.getParentFile().toPath());
+        }
+        final var bundleConfigurationFile = getBundleConfigurationFile();
+        if (bundleConfigurationFile != null) {
+            directories.add(
+                    bundleConfigurationFile.getAbsoluteFile().getParentFile().toPath());
+        }
+        for (final var directory : directories) {
+            registerRecursively(watchService, directory);
+        }
+    }
+
+    private static void registerRecursively(WatchService watchService, Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        final List<Path> directories;
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            directories = paths.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+        for (final var dir : directories) {
+            // Registering a directory again returns the existing key
+            dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        }
+    }
+
+    private static boolean containsAny(Collection<File> files, Set<Path> changedFiles) {
+        return files.stream()
+                .anyMatch(file ->
+                        changedFiles.contains(file.toPath().toAbsolutePath().normalize()));
+    }
+
+    /** The tasks and the dirty bundles at the start of a compilation. */
+    private static final class Compilation {
+        private final List<ProcessFilesTask> tasks;
+
+        private final Map<Integer, Long> dirtyBundles;
+
+        private final long generation;
+
+        Compilation(List<ProcessFilesTask> tasks, Map<Integer, Long> dirtyBundles, long generation) {
+            this.tasks = tasks;
+            this.dirtyBundles = dirtyBundles;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CompilationCacheTest {
+    private static final List<String> KEYS = List.of("aa01", "aa02", "bb03", "cc04");
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testEvictOnlyAfterAddingEntries() throws IOException {
+        final var cacheDir = new File(tempDir, "cache");
+        final var filler = new CompilationCache(cacheDir, Long.MAX_VALUE);
+        for (final var key : KEYS.subList(0, 3)) {
+            filler.put(key, Map.of("minified", createFile(key, 10)));
+        }
+
+        // Nothing was added, so the size of the cache is not checked, even though it is too large
+        final var cache = new CompilationCache(cacheDir, 25);
+        cache.evict(new SystemStreamLog());
+        assertThat(countEntries(cacheDir)).isEqualTo(3);
+
+        // Now it is too large after adding an entry, so the least recently used entries are removed
+        cache.put(KEYS.get(3), Map.of("minified", createFile(KEYS.get(3), 10)));
+        cache.evict(new SystemStreamLog());
+        assertThat(countEntries(cacheDir)).isEqualTo(2);
+        assertThat(cacheDir.list((dir, name) -> name.startsWith("tmp-"))).isEmpty();
+    }
+
+    @Test
+    public void testEvictSkippedWhileOtherBuildEvicts() throws IOException {
+        final var cacheDir = new File(tempDir, "cache");
+        final var cache = new CompilationCache(cacheDir, 0);
+        cache.put(KEYS.get(0), Map.of("minified", createFile(KEYS.get(0), 10)));
+
+        try (final var channel = FileChannel.open(
+                        new File(cacheDir, "evict.lock").toPath(),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                final var lock = channel.lock()) {
+            cache.evict(new SystemStreamLog());
+            assertThat(countEntries(cacheDir)).isEqualTo(1);
+        }
+
+        cache.evict(new SystemStreamLog());
+        assertThat(countEntries(cacheDir)).isZero();
+        assertThat(cache.get(KEYS.get(0))).isNull();
+    }
+
+    private File createFile(String name, int size) throws IOException {
+        final var file = new File(tempDir, name);
+        Files.writeString(file.toPath(), "x".repeat(size), UTF_8);
+        return file;
+    }
+
+    private static long countEntries(File cacheDir) throws IOException {
+        try (final var files = Files.walk(cacheDir.toPath())) {
+            return files.filter(path -> path.getFileName().toString().equals("minified"))
+                    .count();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.blutorange.maven.plugin.closurecompiler.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.blutorange.maven.plugin.closurecompiler.plugin.MinifyMojo;
+import com.google.javascript.jscomp.CompilationLevel;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.CompilerOptions.ChunkOutputType;
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.jscomp.WarningLevel;
+import com.google.javascript.jscomp.deps.ModuleLoader.ResolutionMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.Test;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+public class CompilerOptionsFactoryTest {
+    @Test
+    public void testCreateUsesConfiguration() throws Exception {
+        final var options = new CompilerOptionsFactory(createMojo()).create();
+        assertThat(options.getLanguageIn()).isEqualTo(LanguageMode.ECMASCRIPT_NEXT);
+        assertThat(options.getChunkOutputType()).isEqualTo(ChunkOutputType.GLOBAL_NAMESPACE);
+        assertThat(options.getEnvironment()).isEqualTo(CompilerOptions.Environment.BROWSER);
+        assertThat(options.getModuleResolutionMode()).isEqualTo(ResolutionMode.BROWSER);
+        assertThat(options.isPrettyPrint()).isFalse();
+        assertThat(options.getDefineReplacements()).containsOnlyKeys("DEBUG", "VERSION", "FLAGS");
+    }
+
+    @Test
+    public void testCreateReturnsIndependentOptions() throws Exception {
+        // The compiler modifies the options, each compilation must get its own instance
+        final var factory = new CompilerOptionsFactory(createMojo());
+        final var first = factory.create();
+        final var second = factory.create();
+        assertThat(first).isNotSameAs(second);
+
+        first.setPrettyPrint(true);
+        first.setDefineToBooleanLiteral("OTHER", true);
+        assertThat(second.isPrettyPrint()).isFalse();
+        assertThat(second.getDefineReplacements()).doesNotContainKey("OTHER");
+        assertThat(factory.create().getDefineReplacements()).doesNotContainKey("OTHER");
+    }
+
+    @Test
+    public void testSerializable() throws Exception {
+        // The factory is sent to the compiler daemon
+        final var factory = new CompilerOptionsFactory(createMojo());
+        final var copy = SerializationUtils.roundtrip(factory);
+        assertThat(copy.getFingerprint()).isEqualTo(factory.getFingerprint());
+        assertThat(copy.create().getDefineReplacements()).containsOnlyKeys("DEBUG", "VERSION", "FLAGS");
+    }
+
+    private static MinifyMojo createMojo() throws IllegalAccessException {
+        final var mojo = new MinifyMojo(new DefaultBuildContext());
+        FieldUtils.writeField(mojo, "closureChunkOutputType", ChunkOutputType.GLOBAL_NAMESPACE, true);
+        FieldUtils.writeField(mojo, "closureCompilationLevel", CompilationLevel.SIMPLE_OPTIMIZATIONS, true);
+        FieldUtils.writeField(mojo, "closureEnvironment", CompilerOptions.Environment.BROWSER, true);
+        FieldUtils.writeField(mojo, "closureLanguageIn", LanguageMode.ECMASCRIPT_NEXT, true);
+        FieldUtils.writeField(mojo, "closureLanguageOut", LanguageMode.ECMASCRIPT_2015, true);
+        FieldUtils.writeField(mojo, "closureModuleResolution", ResolutionMode.BROWSER, true);
+        FieldUtils.writeField(mojo, "closureWarningLevel", WarningLevel.DEFAULT, true);
+        FieldUtils.writeField(mojo, "encoding", "UTF-8", true);
+        FieldUtils.writeField(mojo, "closureExtraAnnotations", new ArrayList<String>(), true);
+        FieldUtils.writeField(mojo, "closureForceInjectLibs", new ArrayList<String>(), true);
+        FieldUtils.writeField(mojo, "closureJsModuleRoots", new ArrayList<String>(), true);
+
+        final var defineReplacements = new HashMap<String, String>();
+        defineReplacements.put("DEBUG", "false");
+        defineReplacements.put("VERSION", "'1.0.0'");
+        defineReplacements.put("FLAGS", "0b1011");
+        FieldUtils.writeField(mojo, "closureDefineReplacements", defineReplacements, true);
+
+        final var warningLevels = new HashMap<String, String>();
+        warningLevels.put("misplacedTypeAnnotation", "OFF");
+        warningLevels.put("es5Strict", "OFF");
+        warningLevels.put("uselessCode", "OFF");
+        FieldUtils.writeField(mojo, "closureWarningLevels", warningLevels, true);
+
+        return mojo;
+    }
+}
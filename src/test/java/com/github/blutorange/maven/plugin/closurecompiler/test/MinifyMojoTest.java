@@ -7,19 +7,34 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.BrotliInputStream;
+import com.github.luben.zstd.ZstdInputStream;
+import com.sun.net.httpserver.HttpServer;
 import io.takari.maven.testing.TestResources5;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
@@ -29,6 +44,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.cli.MavenCli;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -140,6 +156,12 @@ public class MinifyMojoTest {
         if (expectedFile.getAbsolutePath().endsWith(".gz")) {
             expectedLines = readLinesFromGzipFile(expectedFile, charset);
             actualLines = readLinesFromGzipFile(actualFile, charset);
+        } else if (expectedFile.getAbsolutePath().endsWith(".br")) {
+            expectedLines = readLinesFromBrotliFile(expectedFile, charset);
+            actualLines = readLinesFromBrotliFile(actualFile, charset);
+        } else if (expectedFile.getAbsolutePath().endsWith(".zst")) {
+            expectedLines = readLinesFromZstdFile(expectedFile, charset);
+            actualLines = readLinesFromZstdFile(actualFile, charset);
         } else {
             expectedLines = FileUtils.readLines(expectedFile, charset);
             actualLines = FileUtils.readLines(actualFile, charset);
@@ -171,21 +193,104 @@ public class MinifyMojoTest {
         }
     }
 
-    private MavenResult invokeMaven(File pom, String goal, Collection<String> profiles) throws IOException {
-        final var args = new ArrayList<String>();
-        args.add("clean");
-        args.add(goal);
+    private List<String> readLinesFromBrotliFile(File file, Charset charset) throws IOException {
+        Brotli4jLoader.ensureAvailability();
+        try (var fileInputStream = new FileInputStream(file);
+                var brotliInputStream = new BrotliInputStream(fileInputStream)) {
+            return IOUtils.readLines(brotliInputStream, charset);
+        }
+    }
+
+    private List<String> readLinesFromZstdFile(File file, Charset charset) throws IOException {
+        try (var fileInputStream = new FileInputStream(file);
+                var zstdInputStream = new ZstdInputStream(fileInputStream)) {
+            return IOUtils.readLines(zstdInputStream, charset);
+        }
+    }
+
+    private MavenResult invokeMaven(File pom, String goal, Collection<String> profiles, String... extraArgs)
+            throws IOException {
+        return invokeMaven(pom, List.of("clean", goal), profiles, extraArgs);
+    }
+
+    private MavenResult invokeMaven(File pom, List<String> goals, Collection<String> profiles, String... extraArgs)
+            throws IOException {
+        final var args = new ArrayList<String>(goals);
         args.add("-DskipTests");
         profiles.stream().flatMap(profile -> Stream.of("-P", profile)).forEach(args::add);
+        args.addAll(List.of(extraArgs));
         System.setProperty("maven.multiModuleProjectDirectory", pom.getParent());
         LOG.info("Invoking maven: {}", StringUtils.join(args, " "));
+        // Maven copies -D properties to the system properties, they must not leak into the other tests
+        final var userProperties = args.stream()
+                .filter(arg -> arg.startsWith("-D"))
+                .map(arg -> StringUtils.substringBefore(arg.substring(2), "="))
+                .collect(Collectors.toList());
+        final var systemProperties = new Properties();
+        userProperties.forEach(key -> {
+            if (System.getProperty(key) != null) {
+                systemProperties.setProperty(key, System.getProperty(key));
+            }
+        });
         try (final var out = new ByteArrayOutputStream()) {
             // We don't want to close ChainedPrintStream as it would close System.out, so we don't use
             // try-with-resources
             final var outStream = new ChainedPrintStream(new PrintStream(out), System.out);
             new MavenCli().doMain(args.toArray(new String[0]), pom.getParent(), outStream, outStream);
             return new MavenResult(out.toString(UTF_8));
+        } finally {
+            userProperties.forEach(System::clearProperty);
+            System.getProperties().putAll(systemProperties);
+        }
+    }
+
+    /**
+     * Waits until the given file contains the given text.
+     *
+     * @return Whether the file contains the text before the timeout elapsed.
+     */
+    private static boolean awaitContent(File file, String text, long timeoutMillis) throws Exception {
+        final var deadline = System.currentTimeMillis() + timeoutMillis;
+        do {
+            if (file.isFile() && FileUtils.readFileToString(file, UTF_8).contains(text)) {
+                return true;
+            }
+            Thread.sleep(100);
+        } while (System.currentTimeMillis() < deadline);
+        return false;
+    }
+
+    /**
+     * Runs the watch goal for the given project, which must have been built once already, in another thread. Stop it
+     * with {@link #stopWatch(ExecutorService, Future)}.
+     */
+    private Future<MavenResult> startWatch(ExecutorService executor, File basedir) {
+        final var pom = new File(basedir, "pom.xml");
+        return executor.submit(() -> invokeMaven(pom, List.of("closure-compiler:watch"), List.of(), "-DwatchDelay=50"));
+    }
+
+    private static MavenResult stopWatch(ExecutorService executor, Future<MavenResult> watch) throws Exception {
+        // The watch goal stops when its thread is interrupted
+        executor.shutdownNow();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS))
+                .as("Watch goal must stop")
+                .isTrue();
+        return watch.get();
+    }
+
+    /**
+     * Saves the given file until the watch goal has compiled it. The watch goal might not have registered the source
+     * directory yet when the file is saved for the first time.
+     */
+    private static void saveUntilCompiled(File sourceFile, String content, File outputFile, String compiledContent)
+            throws Exception {
+        for (var attempt = 0; attempt < 30; attempt += 1) {
+            FileUtils.writeStringToFile(sourceFile, content, UTF_8);
+            if (awaitContent(outputFile, compiledContent, 2000)) {
+                return;
+            }
         }
+        throw new AssertionError("Watch goal did not compile " + sourceFile);
     }
 
     private Map<String, File> listFiles(File basedir) {
@@ -193,7 +298,8 @@ public class MinifyMojoTest {
                 .collect(Collectors.toMap(file -> relativizePath(basedir, file), identity()));
     }
 
-    private MavenResult runMinify(String projectName, Collection<String> profiles) throws Exception {
+    private MavenResult runMinify(String projectName, Collection<String> profiles, String... extraArgs)
+            throws Exception {
         final var parentDir = testResources.getBasedir("parent").getCanonicalFile();
         final var parentPom = new File(parentDir, "pom.xml");
         final var parentPomNew = new File(parentDir.getParentFile(), "pom.xml");
@@ -206,7 +312,7 @@ public class MinifyMojoTest {
 
         clean(basedir);
         invokeMaven(parentPomNew, "install", List.of());
-        return invokeMaven(pom, "package", profiles);
+        return invokeMaven(pom, "package", profiles, extraArgs);
     }
 
     private void runMinifyAndAssertDirContent(String projectName) throws Exception {
@@ -238,11 +344,116 @@ public class MinifyMojoTest {
         runMinifyAndAssertDirContent("bundle");
     }
 
+    @Test
+    public void testBundleThreads() throws Exception {
+        runMinifyAndAssertDirContent("bundlethreads");
+    }
+
+    @Test
+    public void testChunks() throws Exception {
+        // Both bundles include lib.js, which is compiled only once and moved to the common chunk
+        runMinifyAndAssertDirContent("chunks");
+    }
+
     @Test
     public void testCompilationLevel() throws Exception {
         runMinifyAndAssertDirContent("compilationlevel");
     }
 
+    @Test
+    public void testCache() throws Exception {
+        // The first execution stores the output files in the cache, the second one is forced to process the files
+        // again, but must restore them from the cache instead of invoking the closure compiler
+        final var basedir = testResources.getBasedir("cache").getCanonicalFile();
+        final var result = runMinify("cache", List.of());
+        assertThat(result.getOutString()).contains("Compilation cache: 0 hits, 1 misses");
+        assertThat(result.getOutString())
+                .contains("Restored the minified file [script.min.js] from the compilation cache");
+        assertThat(result.getOutString()).contains("Compilation cache: 1 hits, 0 misses");
+        assertDirContent(basedir);
+    }
+
+    @Test
+    public void testConfigChange() throws Exception {
+        runMinifyAndAssertDirContent("configchange");
+    }
+
+    @Test
+    public void testCopyMode() throws Exception {
+        // The second execution must skip the linked files, although they have the modification date of their source
+        final var basedir = testResources.getBasedir("copymode").getCanonicalFile();
+        final var result = runMinify("copymode", List.of());
+        assertThat(StringUtils.countMatches(result.getOutString(), "Created 2 output files"))
+                .isEqualTo(1);
+        assertThat(StringUtils.countMatches(result.getOutString(), "Skipped 2 output files"))
+                .isEqualTo(1);
+        for (final var name : List.of("a.js", "b.js")) {
+            assertThat(Files.isSameFile(
+                            basedir.toPath().resolve("test").resolve(name),
+                            basedir.toPath().resolve("target/test/link").resolve(name)))
+                    .isTrue();
+        }
+        assertDirContent(basedir);
+    }
+
+    @Test
+    public void testDaemon() throws Exception {
+        // The first execution starts the compiler daemon, the second one must reuse the running daemon
+        final var basedir = testResources.getBasedir("daemon").getCanonicalFile();
+        final var result = runMinify("daemon", List.of());
+        assertThat(result.getOutString()).containsOnlyOnce("Starting the compiler daemon");
+        assertThat(result.getOutString()).doesNotContain("Failed to use the compiler daemon");
+        assertDirContent(basedir);
+    }
+
+    @Test
+    public void testDaemonTimeout() throws Exception {
+        // A daemon that accepts the connection but never responds must not block the build, the files must be compiled
+        // in the Maven JVM instead
+        final var basedir = testResources.getBasedir("daemon").getCanonicalFile();
+        runMinify("daemon", List.of());
+        final var stateFiles =
+                FileUtils.listFiles(new File(basedir, "target/daemon"), new String[] {"properties"}, false);
+        assertThat(stateFiles).hasSize(1);
+        final var stateFile = stateFiles.iterator().next();
+        try (final var server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final var connections = new ArrayList<Socket>();
+            final var acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        connections.add(server.accept());
+                    }
+                } catch (IOException e) {
+                    // Server socket was closed
+                }
+            });
+            acceptor.start();
+            final var state = new Properties();
+            try (final var reader = Files.newBufferedReader(stateFile.toPath(), UTF_8)) {
+                state.load(reader);
+            }
+            state.setProperty("port", Integer.toString(server.getLocalPort()));
+            try (final var writer = Files.newBufferedWriter(stateFile.toPath(), UTF_8)) {
+                state.store(writer, null);
+            }
+
+            final var result = invokeMaven(
+                    new File(basedir, "pom.xml"), List.of("package"), List.of(), "-Dforce=true", "-DdaemonTimeout=1");
+            assertThat(result.getOutString()).contains("Failed to use the compiler daemon");
+            assertThat(result.getOutString()).contains("did not respond within 1000 ms");
+            assertDirContent(basedir);
+
+            server.close();
+            acceptor.join();
+            for (final var connection : connections) {
+                connection.close();
+            }
+        } finally {
+            // Stops the daemon that was started by the first build
+            Files.deleteIfExists(stateFile.toPath());
+        }
+    }
+
     @Test
     public void testDefine() throws Exception {
         runMinifyAndAssertDirContent("define");
@@ -319,6 +530,24 @@ public class MinifyMojoTest {
         runMinifyAndAssertDirContent("prettyprint");
     }
 
+    @Test
+    public void testPrecompress() throws Exception {
+        // The *.br file of the minified file is deleted between both executions, so the second one must create the
+        // minified file and all of its precompressed files again
+        final var basedir = testResources.getBasedir("precompress").getCanonicalFile();
+        final var result = runMinify("precompress", List.of());
+        assertThat(StringUtils.countMatches(
+                        result.getOutString(), "Created 1 output files (and precompressed with gzip, brotli, zstd)"))
+                .isEqualTo(2);
+        assertDirContent(basedir);
+    }
+
+    @Test
+    public void testPruneIndex() throws Exception {
+        // The unused files contain syntax errors, the build only succeeds when they are pruned before compiling
+        runMinifyAndAssertDirContent("pruneindex");
+    }
+
     @Test
     public void testRewritePolyfills() throws Exception {
         runMinifyAndAssertDirContent("rewritepolyfills");
@@ -352,6 +581,100 @@ public class MinifyMojoTest {
                 .isInstanceOf(AssertionError.class);
     }
 
+    @Test
+    public void testRemoteCacheDirectory(@TempDir File remoteDir) throws Exception {
+        // The local cache is removed by the clean between both builds, so the second build must download the entry
+        // from the remote cache
+        final var basedir = testResources.getBasedir("remotecache").getCanonicalFile();
+        final var remoteCacheUrl = "-DremoteCacheUrl=" + remoteDir.toURI();
+        final var first = runMinify("remotecache", List.of(), remoteCacheUrl);
+        assertThat(first.getOutString()).contains("Compilation cache: 0 hits, 1 misses");
+        assertThat(FileUtils.listFiles(remoteDir, new String[] {"zip"}, true)).hasSize(1);
+        final var second = runMinify("remotecache", List.of(), remoteCacheUrl);
+        assertThat(second.getOutString()).contains("Compilation cache: 1 hits, 0 misses");
+        assertThat(second.getOutString()).contains("1 of the hits were downloaded from the remote cache");
+        assertDirContent(basedir);
+    }
+
+    @Test
+    public void testRemoteCacheOtherCheckout(@TempDir File remoteDir) throws Exception {
+        // The second build runs in a copy of the project in another directory, as on another CI agent, and must
+        // download the entry created by the first build from the remote cache
+        final var remoteCacheUrl = "-DremoteCacheUrl=" + remoteDir.toURI();
+        final var basedir = testResources.getBasedir("remotecache").getCanonicalFile();
+        final var first = runMinify("remotecache", List.of(), remoteCacheUrl);
+        assertThat(first.getOutString()).contains("Compilation cache: 0 hits, 1 misses");
+
+        final var otherBasedir = new File(basedir.getParentFile(), basedir.getName() + "_other");
+        FileUtils.deleteDirectory(otherBasedir);
+        FileUtils.copyDirectory(basedir, otherBasedir);
+        clean(otherBasedir);
+        final var second = invokeMaven(new File(otherBasedir, "pom.xml"), "package", List.of(), remoteCacheUrl);
+        assertThat(second.getOutString()).contains("Compilation cache: 1 hits, 0 misses");
+        assertThat(second.getOutString()).contains("1 of the hits were downloaded from the remote cache");
+        assertDirContent(otherBasedir);
+    }
+
+    @Test
+    public void testRemoteCacheHttp() throws Exception {
+        // Local stand-in for a remote cache server that supports GET and PUT
+        final var entries = new ConcurrentHashMap<String, byte[]>();
+        final var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/cache/", exchange -> {
+            final var path = exchange.getRequestURI().getPath();
+            if ("PUT".equals(exchange.getRequestMethod())) {
+                entries.put(path, exchange.getRequestBody().readAllBytes());
+                exchange.sendResponseHeaders(201, -1);
+            } else if (entries.containsKey(path)) {
+                exchange.sendResponseHeaders(200, entries.get(path).length);
+                exchange.getResponseBody().write(entries.get(path));
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            final var basedir = testResources.getBasedir("remotecache").getCanonicalFile();
+            final var remoteCacheUrl =
+                    "-DremoteCacheUrl=http://localhost:" + server.getAddress().getPort() + "/cache";
+            final var first = runMinify("remotecache", List.of(), remoteCacheUrl);
+            assertThat(first.getOutString()).contains("Compilation cache: 0 hits, 1 misses");
+            assertThat(entries).hasSize(1);
+            final var second = runMinify("remotecache", List.of(), remoteCacheUrl);
+            assertThat(second.getOutString()).contains("Compilation cache: 1 hits, 0 misses");
+            assertThat(second.getOutString()).contains("1 of the hits were downloaded from the remote cache");
+            assertDirContent(basedir);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testSkipIfHash() throws Exception {
+        // The first execution creates the output file, the second one must skip it based on the content, even though
+        // the output file was made older than the input file in between
+        final var basedir = testResources.getBasedir("skiphash").getCanonicalFile();
+        final var result = runMinify("skiphash", List.of());
+        assertThat(result.getOutString()).contains("Skipped 1 output files (HASH)");
+        assertDirContent(basedir);
+    }
+
+    @Test
+    public void testSkipIfHashOtherCheckout() throws Exception {
+        // The build directory is restored into a copy of the project in another directory, as from the cache of a CI
+        // server, so both executions must skip the output file based on the restored manifest
+        final var basedir = testResources.getBasedir("skiphash").getCanonicalFile();
+        runMinify("skiphash", List.of());
+        final var otherBasedir = new File(basedir.getParentFile(), basedir.getName() + "_other");
+        FileUtils.deleteDirectory(otherBasedir);
+        FileUtils.copyDirectory(basedir, otherBasedir);
+        final var result = invokeMaven(new File(otherBasedir, "pom.xml"), List.of("package"), List.of());
+        assertThat(StringUtils.countMatches(result.getOutString(), "Skipped 1 output files (HASH)"))
+                .isEqualTo(2);
+        assertDirContent(otherBasedir);
+    }
+
     @Test
     public void testSkipIfNewer() throws Exception {
         // Output file does not exist, minification should run
@@ -367,6 +690,21 @@ public class MinifyMojoTest {
                 .isInstanceOf(AssertionError.class);
     }
 
+    @Test
+    public void testSkipIfNewerChain() throws Exception {
+        // The first bundle writes the input file of the second bundle, the second bundle must see the new modification
+        // date of its input file and process it as well
+        final var basedir = testResources.getBasedir("skipnewerchain").getCanonicalFile();
+        runMinify("skipnewerchain", List.of());
+        assertThat(new File(basedir, "test/merged.js")).content(UTF_8).contains("version 2");
+        assertThat(new File(basedir, "test/final.js")).content(UTF_8).contains("version 2");
+    }
+
+    @Test
+    public void testSkipMergeThreads() throws Exception {
+        runMinifyAndAssertDirContent("skipmergethreads");
+    }
+
     @Test
     public void testSkipSome() throws Exception {
         runMinifyAndAssertDirContent("skipsome");
@@ -382,6 +720,21 @@ public class MinifyMojoTest {
         runMinifyAndAssertDirContent("subdirs");
     }
 
+    @Test
+    public void testThreadSafe() throws Exception {
+        final var basedir = testResources.getBasedir("threadsafe").getCanonicalFile();
+        final var modules = List.of("module-a", "module-b", "module-c");
+        for (final var module : modules) {
+            clean(new File(basedir, module));
+        }
+        final var result = runMinify("threadsafe", List.of(), "-T", "3");
+        assertThat(result.getOutString()).doesNotContain("not marked as thread-safe");
+        assertThat(result.getOutString()).contains("BUILD SUCCESS");
+        for (final var module : modules) {
+            assertDirContent(new File(basedir, module));
+        }
+    }
+
     @Test
     public void testTrustedStrings() throws Exception {
         runMinifyAndAssertDirContent("trustedstrings");
@@ -392,6 +745,54 @@ public class MinifyMojoTest {
         runMinifyAndAssertDirContent("usetypesforoptimization");
     }
 
+    @Test
+    public void testWatch() throws Exception {
+        // Changing the file of one bundle must compile that bundle again, but not the other bundle
+        final var basedir = testResources.getBasedir("watch").getCanonicalFile();
+        runMinify("watch", List.of());
+        final var aMin = new File(basedir, "target/test/a.min.js");
+        final var bMin = new File(basedir, "target/test/b.min.js");
+        assertThat(aMin).content(UTF_8).contains("a, version 1");
+        final var bLastModified = bMin.lastModified();
+
+        final var executor = Executors.newSingleThreadExecutor();
+        final var watch = startWatch(executor, basedir);
+        try {
+            saveUntilCompiled(new File(basedir, "test/a.js"), "console.log(\"a, version 2\");\n", aMin, "a, version 2");
+        } finally {
+            final var result = stopWatch(executor, watch);
+            assertThat(result.getOutString()).contains("Waiting for changes...");
+        }
+        assertThat(bMin.lastModified()).isEqualTo(bLastModified);
+    }
+
+    @Test
+    public void testWatchSaveDuringCompilation() throws Exception {
+        // Saving a file again while its bundle is compiled must compile the bundle again with the new content, even
+        // when the compilation of the previous content is not cancelled in time
+        final var basedir = testResources.getBasedir("watch").getCanonicalFile();
+        runMinify("watch", List.of());
+        final var a = new File(basedir, "test/a.js");
+        final var aMin = new File(basedir, "target/test/a.min.js");
+
+        final var executor = Executors.newSingleThreadExecutor();
+        final var watch = startWatch(executor, basedir);
+        try {
+            saveUntilCompiled(a, "console.log(\"a, version 2\");\n", aMin, "a, version 2");
+            for (var version = 3; version <= 12; version += 1) {
+                FileUtils.writeStringToFile(a, "console.log(\"a, version " + version + "\");\n", UTF_8);
+                // Longer than the watch delay, so that the compilation of this version is running when the next
+                // version is saved, at varying points of the compilation
+                Thread.sleep(100 + 25 * (version % 5));
+            }
+            assertThat(awaitContent(aMin, "a, version 12", 30000))
+                    .as("Last saved version must be compiled")
+                    .isTrue();
+        } finally {
+            stopWatch(executor, watch);
+        }
+    }
+
     @Test
     public void testGzipCompression() throws Exception {
         runMinifyAndAssertDirContent("gzip-compression");
@@ -0,0 +1 @@
+'use strict';function main(){const a=new Vector2(1,2),b=new Vector2(3,4);console.log(a.add(b))};
@@ -0,0 +1,5 @@
+function main() {
+  const a = new Vector2(1, 2);
+  const b = new Vector2(3, 4);
+  console.log(a.add(b));
+}
\ No newline at end of file
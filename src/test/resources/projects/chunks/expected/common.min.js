@@ -0,0 +1,2 @@
+'use strict';function greet(a){console.log("Hello, "+a+"!")};
+//# sourceMappingURL=common.min.js.map
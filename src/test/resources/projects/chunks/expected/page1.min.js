@@ -0,0 +1,2 @@
+'use strict';greet("page 1");
+//# sourceMappingURL=page1.min.js.map
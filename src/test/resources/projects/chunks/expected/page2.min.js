@@ -0,0 +1,2 @@
+'use strict';greet("page 2");
+//# sourceMappingURL=page2.min.js.map
@@ -0,0 +1,4 @@
+function greet(name) {
+    var greeting = "Hello, " + name + "!";
+    console.log(greeting);
+}
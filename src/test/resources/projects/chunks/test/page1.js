@@ -0,0 +1 @@
+greet("page 1");
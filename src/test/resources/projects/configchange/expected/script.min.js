@@ -0,0 +1,5 @@
+'use strict';
+function main() {
+  console.log("Hello, blutorange!");
+}
+;
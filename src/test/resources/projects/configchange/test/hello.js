@@ -0,0 +1,6 @@
+function main() {
+	function sayHello(name) {
+		console.log("Hello, " + name + "!");
+	}
+	sayHello("blutorange");	
+}
\ No newline at end of file
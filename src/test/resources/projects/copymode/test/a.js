@@ -0,0 +1,3 @@
+console.log("Logging 1 (one)");
+console.log("Logging 1 (one)");
+console.log("Logging 1 (one)");
\ No newline at end of file
@@ -0,0 +1,3 @@
+console.log("Logging 2 (two)");
+console.log("Logging 2 (two)");
+console.log("Logging 2 (two)");
\ No newline at end of file
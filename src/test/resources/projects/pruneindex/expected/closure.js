@@ -0,0 +1 @@
+'use strict';var module$exports$app$util={greet:function(a){console.log("Hello, "+a)}};var module$exports$app={};(0,module$exports$app$util.greet)("world");
@@ -0,0 +1 @@
+'use strict';function greet$$module$util(a){console.log("Hello, "+a)}var module$util={};module$util.greet=greet$$module$util;greet$$module$util("world");var module$main={};
@@ -0,0 +1,5 @@
+goog.module('app');
+
+const util = goog.require('app.util');
+
+util.greet('world');
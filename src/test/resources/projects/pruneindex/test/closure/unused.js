@@ -0,0 +1,4 @@
+goog.module('app.unused');
+
+// Not reachable from the entry point, so it is never read or compiled
+exports.x = ;
@@ -0,0 +1,5 @@
+goog.module('app.util');
+
+exports.greet = function(name) {
+  console.log('Hello, ' + name);
+};
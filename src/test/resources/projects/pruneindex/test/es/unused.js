@@ -0,0 +1,2 @@
+// Not reachable from the entry point, so it is never read or compiled
+export const = ;
@@ -0,0 +1,2 @@
+'use strict';function main(){console.log("Hello, blutorange!")};
+//# sourceMappingURL=script.min.js.map
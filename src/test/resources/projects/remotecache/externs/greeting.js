@@ -0,0 +1,4 @@
+/** @externs */
+
+/** @param {string} message */
+function logGreeting(message) {}
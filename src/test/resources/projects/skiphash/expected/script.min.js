@@ -0,0 +1 @@
+'use strict';throw Error("This file should not have been processed");
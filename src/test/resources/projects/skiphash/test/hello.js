@@ -0,0 +1 @@
+throw new Error("This file should not have been processed")
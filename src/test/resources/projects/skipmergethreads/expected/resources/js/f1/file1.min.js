@@ -0,0 +1 @@
+'use strict';console.log("file1");
\ No newline at end of file
@@ -0,0 +1 @@
+'use strict';console.log("file2");
\ No newline at end of file
@@ -0,0 +1 @@
+'use strict';console.log("file3");
\ No newline at end of file
@@ -0,0 +1 @@
+'use strict';console.log("file4");
\ No newline at end of file
@@ -0,0 +1 @@
+console.log("file1");
\ No newline at end of file
@@ -0,0 +1 @@
+console.log("file2");
\ No newline at end of file
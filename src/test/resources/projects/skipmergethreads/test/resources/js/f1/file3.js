@@ -0,0 +1 @@
+console.log("file3");
\ No newline at end of file
@@ -0,0 +1 @@
+console.log("file4");
\ No newline at end of file
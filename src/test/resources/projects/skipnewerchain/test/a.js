@@ -0,0 +1 @@
+console.log("version 2");
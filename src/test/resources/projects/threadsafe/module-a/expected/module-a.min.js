@@ -0,0 +1 @@
+'use strict';function greet(a){console.log("Hello, "+a+"!")}greet("module a");function wave(a){for(var b=0;b<a;++b)console.log("*waves*")}wave(2);
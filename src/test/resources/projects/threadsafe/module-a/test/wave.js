@@ -0,0 +1,6 @@
+function wave(times) {
+	for (var i = 0; i < times; ++i) {
+		console.log("*waves*");
+	}
+}
+wave(2);
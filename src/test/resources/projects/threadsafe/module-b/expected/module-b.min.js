@@ -0,0 +1 @@
+'use strict';function product(a){return a.reduce(function(b,c){return b*c},1)}console.log(product([2,3,4]));function sum(a){return a.reduce(function(b,c){return b+c},0)}console.log(sum([1,2,3]));
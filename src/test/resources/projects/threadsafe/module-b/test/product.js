@@ -0,0 +1,6 @@
+function product(numbers) {
+	return numbers.reduce(function(total, number) {
+		return total * number;
+	}, 1);
+}
+console.log(product([2, 3, 4]));
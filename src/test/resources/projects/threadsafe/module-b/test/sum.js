@@ -0,0 +1,6 @@
+function sum(numbers) {
+	return numbers.reduce(function(total, number) {
+		return total + number;
+	}, 0);
+}
+console.log(sum([1, 2, 3]));
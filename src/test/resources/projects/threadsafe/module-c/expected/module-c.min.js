@@ -0,0 +1 @@
+'use strict';class Point{constructor(a,b){this.x=a;this.y=b}distanceTo(a){const b=this.x-a.x;a=this.y-a.y;return Math.sqrt(b*b+a*a)}}console.log((new Point(0,0)).distanceTo(new Point(3,4)));
@@ -0,0 +1,12 @@
+class Point {
+	constructor(x, y) {
+		this.x = x;
+		this.y = y;
+	}
+	distanceTo(other) {
+		const dx = this.x - other.x;
+		const dy = this.y - other.y;
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+}
+console.log(new Point(0, 0).distanceTo(new Point(3, 4)));